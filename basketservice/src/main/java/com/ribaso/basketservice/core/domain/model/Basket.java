@@ -1,11 +1,19 @@
 package com.ribaso.basketservice.core.domain.model;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import jakarta.persistence.*;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
@@ -16,7 +24,113 @@ public class Basket {
     private String id;
     private String userId;
 
+    // Wird mit jeder Aenderung erhoeht, auch durch die Update-Abfragen der Summen; Grundlage der ETags
+    @Version
+    private Long version;
+
+    // Laufende Summen, in derselben Transaktion wie die Artikel gepflegt
+    @Column(nullable = false, precision = 38, scale = 2)
+    private BigDecimal totalCosts = BigDecimal.ZERO;
+    // Summe der Mengen aller Artikel
+    @Column(nullable = false)
+    private int itemCount;
+
     @OneToMany(mappedBy = "basket", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private List<Item> items = new ArrayList<>();
+
+    // Artikel nach Buch-ID, beim ersten Zugriff aus der Liste aufgebaut und von addItem/removeItem gepflegt;
+    // volatile, weil gecachte Snapshots von mehreren Threads gelesen werden
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile Map<String, Item> itemsById;
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+        this.itemsById = null;
+    }
+
+    /**
+     * Liefert den Artikel mit der Buch-ID in O(1) oder {@code null}. Änderungen an
+     * {@link #getItems()} vorbei an {@link #addItem}/{@link #removeItem} erkennt der Index
+     * nur, wenn sich die Anzahl ändert; dann wird er neu aufgebaut.
+     */
+    public Item findItem(String bookId) {
+        Map<String, Item> index = itemsById;
+        if (index == null || index.size() != items.size()) {
+            index = new HashMap<>();
+            for (Item item : items) {
+                index.put(item.getId(), item);
+            }
+            itemsById = index;
+        }
+        return index.get(bookId);
+    }
+
+    /**
+     * Fügt einen Artikel hinzu und ordnet ihn diesem Warenkorb zu.
+     */
+    public void addItem(Item item) {
+        item.setBasket(this);
+        items.add(item);
+        if (itemsById != null) {
+            itemsById.put(item.getId(), item);
+        }
+    }
+
+    /**
+     * Entfernt den Artikel; bei gespeicherten Warenkörben löscht JPA dann auch die Zeile.
+     */
+    public void removeItem(Item item) {
+        if (items.remove(item) && itemsById != null) {
+            itemsById.remove(item.getId());
+        }
+    }
+
+    /**
+     * Entfernt alle Artikel.
+     */
+    public void clearItems() {
+        items.clear();
+        itemsById = null;
+    }
+
+    /**
+     * Erstellt eine losgelöste Kopie des Warenkorbs samt seiner Artikel.
+     */
+    public Basket copy() {
+        Basket copy = new Basket();
+        copy.setId(id);
+        copy.setUserId(userId);
+        copy.setVersion(version);
+        copy.setTotalCosts(totalCosts);
+        copy.setItemCount(itemCount);
+        for (Item item : items) {
+            Item itemCopy = new Item();
+            itemCopy.setId(item.getId());
+            itemCopy.setName(item.getName());
+            itemCopy.setAmount(item.getAmount());
+            itemCopy.setPrice(item.getPrice());
+            itemCopy.setVersion(item.getVersion());
+            copy.addItem(itemCopy);
+        }
+        return copy;
+    }
+
+    /**
+     * Berechnet Gesamtkosten und Artikelanzahl aus den geladenen Artikeln neu.
+     */
+    public void recalculateTotals() {
+        BigDecimal costs = BigDecimal.ZERO;
+        int count = 0;
+        for (Item item : items) {
+            costs = costs.add(item.getPrice().multiply(BigDecimal.valueOf(item.getAmount())));
+            count += item.getAmount();
+        }
+        totalCosts = costs;
+        itemCount = count;
+    }
 }
@@ -0,0 +1,54 @@
+package com.ribaso.basketservice.core.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * Änderung an einem Warenkorb, wie sie an andere Dienste veröffentlicht wird. Mengen sind
+ * Differenzen: {@link ItemAdded} und {@link ItemRemoved} nennen, um wie viel sich die Menge
+ * eines Artikels geändert hat.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.SIMPLE_NAME, property = "type")
+@JsonSubTypes({
+        @JsonSubTypes.Type(BasketEvent.ItemAdded.class),
+        @JsonSubTypes.Type(BasketEvent.ItemRemoved.class),
+        @JsonSubTypes.Type(BasketEvent.BasketRemoved.class)})
+public sealed interface BasketEvent {
+
+    String basketId();
+
+    /**
+     * Routing-Schlüssel auf dem Topic-Exchange der Warenkorb-Ereignisse.
+     */
+    String routingKey();
+
+    /**
+     * Ein Artikel wurde hinzugefügt oder seine Menge erhöht.
+     */
+    record ItemAdded(String basketId, String bookId, int amount) implements BasketEvent {
+        @Override
+        public String routingKey() {
+            return "basket.item.added";
+        }
+    }
+
+    /**
+     * Die Menge eines Artikels wurde verringert; erreicht sie 0, ist der Artikel entfernt.
+     */
+    record ItemRemoved(String basketId, String bookId, int amount) implements BasketEvent {
+        @Override
+        public String routingKey() {
+            return "basket.item.removed";
+        }
+    }
+
+    /**
+     * Der Warenkorb wurde gelöscht.
+     */
+    record BasketRemoved(String basketId) implements BasketEvent {
+        @Override
+        public String routingKey() {
+            return "basket.removed";
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ribaso.basketservice.core.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Eine Zeile einer Sammeländerung am Warenkorb.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BasketItemOperation {
+
+    public enum Type {
+        ADD,
+        REMOVE,
+        SET
+    }
+
+    private Type type;
+    private String itemID;
+    private int amount;
+
+    /**
+     * Liefert die Artikel, für die Buchdetails benötigt werden: alle hinzugefügten oder
+     * gesetzten Artikel, die noch nicht im Warenkorb liegen oder innerhalb der Liste
+     * entfernt werden könnten.
+     */
+    public static Set<String> itemsNeedingBookDetails(List<BasketItemOperation> operations, Set<String> existingItemIDs) {
+        Set<String> removable = new HashSet<>();
+        Set<String> needed = new LinkedHashSet<>();
+        for (BasketItemOperation operation : operations) {
+            if (operation.getType() == null || operation.getItemID() == null) {
+                continue;
+            }
+            if (operation.getType() == Type.REMOVE || (operation.getType() == Type.SET && operation.getAmount() == 0)) {
+                removable.add(operation.getItemID());
+            } else if (!existingItemIDs.contains(operation.getItemID()) || removable.contains(operation.getItemID())) {
+                needed.add(operation.getItemID());
+            }
+        }
+        return needed;
+    }
+}
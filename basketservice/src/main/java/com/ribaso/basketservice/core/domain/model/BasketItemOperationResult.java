@@ -0,0 +1,25 @@
+package com.ribaso.basketservice.core.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ergebnis einer einzelnen {@link BasketItemOperation}, in derselben Reihenfolge wie die Anfrage.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BasketItemOperationResult {
+    private String itemID;
+    private boolean success;
+    private String error;
+
+    public static BasketItemOperationResult ok(String itemID) {
+        return new BasketItemOperationResult(itemID, true, null);
+    }
+
+    public static BasketItemOperationResult failed(String itemID, String error) {
+        return new BasketItemOperationResult(itemID, false, error);
+    }
+}
@@ -0,0 +1,20 @@
+package com.ribaso.basketservice.core.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Kopfdaten eines Warenkorbs (Artikelanzahl, Gesamtkosten und Version), ohne die Artikel zu laden.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BasketSummary {
+    private String basketId;
+    private int itemCount;
+    private BigDecimal totalCosts;
+    private long version;
+}
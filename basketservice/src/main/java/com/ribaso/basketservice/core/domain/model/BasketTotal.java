@@ -0,0 +1,11 @@
+package com.ribaso.basketservice.core.domain.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Projektion für die in der Datenbank aggregierten Gesamtkosten eines Warenkorbs.
+ */
+public interface BasketTotal {
+    String getBasketId();
+    BigDecimal getTotalCosts();
+}
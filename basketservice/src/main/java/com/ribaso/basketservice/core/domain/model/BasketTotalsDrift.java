@@ -0,0 +1,19 @@
+package com.ribaso.basketservice.core.domain.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Gespeicherte und aus den Artikeln berechnete Summen eines Warenkorbs, die voneinander abweichen.
+ */
+public interface BasketTotalsDrift {
+
+    String getBasketId();
+
+    BigDecimal getStoredTotalCosts();
+
+    Integer getStoredItemCount();
+
+    BigDecimal getTotalCosts();
+
+    Long getItemCount();
+}
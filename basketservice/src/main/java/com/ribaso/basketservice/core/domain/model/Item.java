@@ -9,14 +9,27 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 
 @Data
 @Entity
+@IdClass(ItemKey.class)
 public class Item {
+    // Nachkommastellen der Preise, wie die Spalte numeric(12,2)
+    public static final int PRICE_SCALE = 2;
+
+    // Buch-ID; zusammen mit dem Warenkorb der Primaerschluessel (basket_id, book_id)
     @Id
+    @Column(name = "book_id")
     private String id;
     private String name;
     private int amount;
+    @Column(nullable = false, precision = 12, scale = PRICE_SCALE)
     private BigDecimal price;
 
-    @ManyToOne
+    // Optimistische Sperre; die Mengen-Updates im ItemRepository erhoehen sie ebenfalls.
+    // Leer bei neuen Artikeln: save() erkennt sie daran und fuegt ohne vorheriges SELECT ein
+    @Version
+    private Long version;
+
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "basket_id")
     @JsonBackReference
     private Basket basket;
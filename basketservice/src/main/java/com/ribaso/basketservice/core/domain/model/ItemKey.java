@@ -0,0 +1,21 @@
+package com.ribaso.basketservice.core.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Schlüssel eines {@link Item}: dasselbe Buch kann in mehreren Warenkörben liegen, je
+ * Warenkorb aber nur einmal.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemKey implements Serializable {
+    // Buch-ID, wie Item.id
+    private String id;
+    // ID des Warenkorbs, wie Item.basket
+    private String basket;
+}
@@ -0,0 +1,20 @@
+package com.ribaso.basketservice.core.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Eine Zeile der seitenweisen Artikelliste, ohne Rückverweis auf den Warenkorb.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemSummary {
+    private String id;
+    private String name;
+    private int amount;
+    private BigDecimal price;
+}
@@ -0,0 +1,33 @@
+package com.ribaso.basketservice.core.domain.model;
+
+import lombok.Data;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Noch nicht veröffentlichte Warenkorb-Ereignisse einer Transaktion. Die Zeile wird in
+ * derselben Transaktion wie die Änderung geschrieben und nach der bestätigten
+ * Veröffentlichung gelöscht.
+ */
+@Data
+@Entity
+@Table(name = "basket_event_outbox")
+public class OutboxEntry {
+    // Von der Datenbank vergeben, beim Einfuegen nach der Sperre auf den Warenkorb: die Eintraege
+    // eines Warenkorbs sind so in der Reihenfolge ihrer Commits nummeriert
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String basketId;
+
+    // Ereignisse der Transaktion als JSON-Liste, siehe BasketEvent
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
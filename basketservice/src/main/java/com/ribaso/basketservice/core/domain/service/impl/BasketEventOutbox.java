@@ -0,0 +1,78 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ribaso.basketservice.core.domain.model.BasketEvent;
+import com.ribaso.basketservice.core.domain.model.OutboxEntry;
+import com.ribaso.basketservice.core.domain.service.interfaces.OutboxRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Writes basket events to the outbox table in the caller's transaction, so they are stored
+ * if and only if the change commits. All events of one call share one row (one INSERT,
+ * however many lines a bulk change has); the {@code BasketEventPublisher} sends them.
+ */
+@Component
+public class BasketEventOutbox {
+
+    private static final TypeReference<List<BasketEvent>> EVENT_LIST = new TypeReference<>() {
+    };
+
+    private final OutboxRepository outboxRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    public BasketEventOutbox(OutboxRepository outboxRepository, ObjectMapper objectMapper,
+            @Value("${basket.events.enabled:true}") boolean enabled) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Stores the events of one basket. Must run inside the transaction of the change, after
+     * the basket row has been locked or updated.
+     */
+    public void append(String basketId, List<BasketEvent> events) {
+        if (!enabled || events.isEmpty()) {
+            return;
+        }
+        OutboxEntry entry = new OutboxEntry();
+        entry.setBasketId(basketId);
+        entry.setPayload(write(events));
+        entry.setCreatedAt(Instant.now());
+        outboxRepository.save(entry);
+    }
+
+    public void append(BasketEvent event) {
+        append(event.basketId(), List.of(event));
+    }
+
+    /**
+     * Reads the events of an outbox row.
+     */
+    public List<BasketEvent> read(OutboxEntry entry) {
+        try {
+            return objectMapper.readValue(entry.getPayload(), EVENT_LIST);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox entry " + entry.getId(), e);
+        }
+    }
+
+    private String write(List<BasketEvent> events) {
+        try {
+            // Typ der Liste explizit, sonst schreibt Jackson die Typangabe der Elemente nicht
+            return objectMapper.writerFor(EVENT_LIST).writeValueAsString(events);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize basket events", e);
+        }
+    }
+}
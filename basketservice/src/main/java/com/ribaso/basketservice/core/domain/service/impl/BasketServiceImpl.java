@@ -1,8 +1,14 @@
 package com.ribaso.basketservice.core.domain.service.impl;
 
 import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketEvent;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperationResult;
+import com.ribaso.basketservice.core.domain.model.BasketSummary;
+import com.ribaso.basketservice.core.domain.model.BasketTotal;
 import com.ribaso.basketservice.core.domain.model.Book;
 import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.model.ItemSummary;
 import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
 import com.ribaso.basketservice.core.domain.service.interfaces.ItemRepository;
 import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
@@ -14,20 +20,42 @@ import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.transaction.Transactional;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
+@Qualifier("basketStorage")
+@ConditionalOnProperty(name = "basket.storage.mode", havingValue = "jpa", matchIfMissing = true)
 public class BasketServiceImpl implements BasketService {
 
     
     private static final Logger log = LoggerFactory.getLogger(Book.class);
 
+    private static final int TOTALS_QUERY_CHUNK_SIZE = 500;
+
     @Autowired
     private BasketRepository basketRepository;
 
@@ -36,8 +64,19 @@ public class BasketServiceImpl implements BasketService {
     
     @Autowired
     private GetBookDetails getBookDetails;
-    
-    
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
+
+    @Autowired
+    private BasketSnapshotCache basketCache;
+
+    @Autowired
+    private BasketEventOutbox eventOutbox;
 
     @Override
     @Transactional
@@ -46,52 +85,262 @@ public class BasketServiceImpl implements BasketService {
             throw new InvalidAmountException("Amount must be greater than zero");
         }
 
-        Basket basket = getBasket(basketID);
-        Optional<Item> existingItem = basket.getItems().stream()
-                .filter(item -> item.getId().equals(itemID))
-                .findFirst();
-
-        if (existingItem.isPresent()) {
-            Item item = existingItem.get();
-            item.setAmount(item.getAmount() + amount);
-            itemRepository.save(item);
+        // Vorhandene Artikel werden mit einem einzigen UPDATE erhoeht, ohne Lesen und ohne Lost Update
+        if (itemRepository.incrementAmount(basketID, itemID, amount) > 0) {
+            basketRepository.addItemToTotals(basketID, itemID, amount);
         } else {
-           
+            if (!basketRepository.existsById(basketID)) {
+                throw new UnknownBasketIDException("Basket not found");
+            }
+
             Book book = (Book) getBookDetails.getBookDetails(itemID);  // Method to wait for the response to be populated
             if (book == null) {
                 throw new UnknownItemIDException("Book not found");
             }
 
-            Item newItem = new Item();
-            log.info("itemId"+itemID);
-            newItem.setId(itemID);
-            log.info("amount"+ amount);
-            newItem.setAmount(amount);
-            log.info("bookTitle"+ book.getTitle());
-            newItem.setName(book.getTitle());
-            log.info("Price_string"+ (book.getPrice()));
-            try {
-                newItem.setPrice(cleanAndConvertToBigDecimal(book.getPrice()));
+            Item newItem = newItem(basketID, itemID, amount, book);
+            // Vor dem Summen-UPDATE schreiben: wie ueberall Artikel vor Warenkorb sperren
+            itemRepository.saveAndFlush(newItem);
+            basketRepository.addToTotals(basketID, newItem.getPrice().multiply(BigDecimal.valueOf(amount)), amount);
+        }
+        eventOutbox.append(new BasketEvent.ItemAdded(basketID, itemID, amount));
+        basketCache.invalidate(basketID);
+        return true;
+    }
+
+    @Override
+    public List<BasketItemOperationResult> applyItemOperations(String basketID, List<BasketItemOperation> operations) {
+        if (!basketRepository.existsById(basketID)) {
+            throw new UnknownBasketIDException("Basket not found");
+        }
+
+        // Buchdetails fuer alle neuen Artikel vorab und ausserhalb der Transaktion holen
+        Set<String> existingItemIDs = new HashSet<>(itemRepository.findIdsByBasketId(basketID));
+        Set<String> newItemIDs = BasketItemOperation.itemsNeedingBookDetails(operations, existingItemIDs);
+        Map<String, Book> books = newItemIDs.isEmpty() ? Map.of() : getBookDetails.getBookDetails(newItemIDs);
+
+        // Zeilen in Reihenfolge der Artikel-ID ausfuehren (stabil, je Artikel bleibt die Reihenfolge erhalten):
+        // jede Transaktion sperrt Artikel so aufsteigend und zuletzt den Warenkorb, zwei Sammelaenderungen
+        // koennen sich damit nicht gegenseitig blockieren
+        List<Integer> executionOrder = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            executionOrder.add(i);
+        }
+        executionOrder.sort(Comparator.comparing(i -> operations.get(i).getItemID(),
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        List<BasketItemOperationResult> results = transactionTemplate.execute(status -> {
+            BasketItemOperationResult[] lineResults = new BasketItemOperationResult[operations.size()];
+            // Neue Artikel erst sammeln und gemeinsam einfuegen, damit Hibernate die INSERTs als Batch schickt
+            Map<String, Item> newItems = new LinkedHashMap<>();
+            List<BasketEvent> events = new ArrayList<>();
+            for (int i : executionOrder) {
+                lineResults[i] = applyItemOperation(basketID, operations.get(i), existingItemIDs, books, newItems, events);
+            }
+            if (!newItems.isEmpty()) {
+                // Aufsteigend nach ID wie die Ausfuehrung, und vor der Sperre auf den Warenkorb
+                itemRepository.saveAll(newItems.values());
+                itemRepository.flush();
+                for (Item item : newItems.values()) {
+                    events.add(new BasketEvent.ItemAdded(basketID, item.getId(), item.getAmount()));
+                }
+            }
+            // Einmal am Ende statt je Zeile, so wird die Warenkorb-Zeile erst nach allen Artikeln gesperrt
+            basketRepository.lockById(basketID);
+            basketRepository.recomputeTotals(basketID);
+            eventOutbox.append(basketID, events);
+            return Arrays.asList(lineResults);
+        });
+        basketCache.invalidate(basketID);
+        return results;
+    }
+
+    private BasketItemOperationResult applyItemOperation(String basketID, BasketItemOperation operation,
+            Set<String> existingItemIDs, Map<String, Book> books, Map<String, Item> newItems, List<BasketEvent> events) {
+        String itemID = operation.getItemID();
+        if (operation.getType() == null || itemID == null) {
+            return BasketItemOperationResult.failed(itemID, "Operation type and item ID are required");
+        }
+        int amount = operation.getAmount();
+        Item newItem = newItems.get(itemID);
+        if (newItem != null) {
+            return applyToNewItem(operation, newItem, newItems);
+        }
+        // Fuer Artikel, die beim Lesen der IDs noch fehlten, kein bedingtes Update; legt ein anderer
+        // Schreiber sie inzwischen an, scheitert das INSERT am Schluessel und die Aenderung wird wiederholt
+        boolean known = existingItemIDs.contains(itemID);
+        switch (operation.getType()) {
+            case ADD -> {
+                if (amount <= 0) {
+                    return BasketItemOperationResult.failed(itemID, "Amount must be greater than zero");
+                }
+                if (!known || itemRepository.incrementAmount(basketID, itemID, amount) == 0) {
+                    return insertItem(basketID, itemID, amount, books, newItems);
+                }
+                events.add(new BasketEvent.ItemAdded(basketID, itemID, amount));
+            }
+            case REMOVE -> {
+                if (amount <= 0) {
+                    return BasketItemOperationResult.failed(itemID, "Amount must be greater than zero");
+                }
+                if (itemRepository.decrementAmount(basketID, itemID, amount) == 0) {
+                    return BasketItemOperationResult.failed(itemID,
+                            itemRepository.existsByIdAndBasketId(itemID, basketID) ? "Not enough items to remove" : "Item not found");
+                }
+                itemRepository.deleteIfEmpty(basketID, itemID);
+                events.add(new BasketEvent.ItemRemoved(basketID, itemID, amount));
+            }
+            case SET -> {
+                if (amount < 0) {
+                    return BasketItemOperationResult.failed(itemID, "Amount must not be negative");
+                }
+                if (!known && amount > 0) {
+                    return insertItem(basketID, itemID, amount, books, newItems);
+                }
+                // Bisherige Menge gesperrt lesen, die Ereignisse nennen die Differenz
+                Optional<Integer> previous = itemRepository.findAmountForUpdate(basketID, itemID);
+                if (previous.isEmpty()) {
+                    return amount == 0
+                            ? BasketItemOperationResult.failed(itemID, "Item not found")
+                            : insertItem(basketID, itemID, amount, books, newItems);
+                }
+                itemRepository.setAmount(basketID, itemID, amount);
+                itemRepository.deleteIfEmpty(basketID, itemID);
+                int change = amount - previous.get();
+                if (change > 0) {
+                    events.add(new BasketEvent.ItemAdded(basketID, itemID, change));
+                } else if (change < 0) {
+                    events.add(new BasketEvent.ItemRemoved(basketID, itemID, -change));
+                }
+            }
+        }
+        return BasketItemOperationResult.ok(itemID);
+    }
+
+    /**
+     * Folgende Zeilen fuer einen Artikel, der in dieser Sammelaenderung neu ist, aendern nur das noch
+     * nicht geschriebene Item. Es gelten dieselben Regeln wie fuer gespeicherte Artikel.
+     */
+    private static BasketItemOperationResult applyToNewItem(BasketItemOperation operation, Item newItem,
+            Map<String, Item> newItems) {
+        String itemID = newItem.getId();
+        int amount = operation.getAmount();
+        switch (operation.getType()) {
+            case ADD -> {
+                if (amount <= 0) {
+                    return BasketItemOperationResult.failed(itemID, "Amount must be greater than zero");
+                }
+                newItem.setAmount(newItem.getAmount() + amount);
             }
-            catch (NumberFormatException e) {
-                log.error("Invalid number format for price: " + book.getPrice(), e);
+            case REMOVE -> {
+                if (amount <= 0) {
+                    return BasketItemOperationResult.failed(itemID, "Amount must be greater than zero");
+                }
+                if (amount > newItem.getAmount()) {
+                    return BasketItemOperationResult.failed(itemID, "Not enough items to remove");
+                }
+                newItem.setAmount(newItem.getAmount() - amount);
             }
-            newItem.setBasket(basket);
+            case SET -> {
+                if (amount < 0) {
+                    return BasketItemOperationResult.failed(itemID, "Amount must not be negative");
+                }
+                newItem.setAmount(amount);
+            }
+        }
+        if (newItem.getAmount() == 0) {
+            newItems.remove(itemID);
+        }
+        return BasketItemOperationResult.ok(itemID);
+    }
 
-            itemRepository.save(newItem);
+    private BasketItemOperationResult insertItem(String basketID, String itemID, int amount, Map<String, Book> books,
+            Map<String, Item> newItems) {
+        Book book = books.get(itemID);
+        if (book == null) {
+            return BasketItemOperationResult.failed(itemID, "Book not found");
         }
-        return true;
+        newItems.put(itemID, newItem(basketID, itemID, amount, book));
+        return BasketItemOperationResult.ok(itemID);
+    }
+
+    private Item newItem(String basketID, String itemID, int amount, Book book) {
+        Item newItem = new Item();
+        log.info("itemId"+itemID);
+        newItem.setId(itemID);
+        log.info("amount"+ amount);
+        newItem.setAmount(amount);
+        log.info("bookTitle"+ book.getTitle());
+        newItem.setName(book.getTitle());
+        log.info("Price_string"+ (book.getPrice()));
+        newItem.setPrice(cleanAndConvertToBigDecimal(book.getPrice()));
+        newItem.setBasket(basketRepository.getReferenceById(basketID));
+        return newItem;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> addItemAsync(String basketID, String itemID, int amount) {
+        if (amount <= 0) {
+            throw new InvalidAmountException("Amount must be greater than zero");
+        }
+
+        // Die Antwort landet im Cache, sodass addItem anschliessend nicht mehr auf den BookService wartet
+        return getBookDetails.getBookDetailsAsync(itemID)
+                .thenApplyAsync(book -> transactionTemplate.execute(status -> {
+                    try {
+                        return addItem(basketID, itemID, amount);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }), taskExecutor);
     }
 
+    /**
+     * Liefert einen gecachten, schreibgeschützten Snapshot des Warenkorbs.
+     */
     @Override
     public Basket getBasket(String basketID) {
-        return basketRepository.findById(basketID).orElseThrow(() -> new UnknownBasketIDException("Basket not found"));
+        Basket basket = basketCache.get(basketID, id -> basketRepository.findWithItemsById(id).map(Basket::copy).orElse(null));
+        if (basket == null) {
+            throw new UnknownBasketIDException("Basket not found");
+        }
+        return basket;
+    }
+
+    @Override
+    public long getBasketVersion(String basketID) {
+        Basket cached = basketCache.getIfPresent(basketID);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        return basketRepository.findVersionById(basketID)
+                .orElseThrow(() -> new UnknownBasketIDException("Basket not found"));
     }
 
     @Override
+    public Long getBasketVersion(Basket basket) {
+        return basket.getVersion();
+    }
+
+    @Override
+    public BasketSummary getBasketSummary(String basketID) {
+        Basket cached = basketCache.getIfPresent(basketID);
+        if (cached != null) {
+            return new BasketSummary(cached.getId(), cached.getItemCount(), cached.getTotalCosts(), cached.getVersion());
+        }
+        return basketRepository.findSummaryById(basketID)
+                .orElseThrow(() -> new UnknownBasketIDException("Basket not found"));
+    }
+
+    @Override
+    @Transactional
     public boolean removeBasket(String basketID) {
         if (basketRepository.existsById(basketID)) {
             basketRepository.deleteById(basketID);
+            // Erst loeschen und damit sperren, dann das Ereignis schreiben
+            basketRepository.flush();
+            eventOutbox.append(new BasketEvent.BasketRemoved(basketID));
+            basketCache.invalidate(basketID);
             return true;
         }
         return false;
@@ -99,10 +348,26 @@ public class BasketServiceImpl implements BasketService {
 
     @Override
     public BigDecimal getTotalCosts(String basketID) {
-        Basket basket = getBasket(basketID);
-        return basket.getItems().stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getAmount())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Basket cached = basketCache.getIfPresent(basketID);
+        if (cached != null) {
+            return cached.getTotalCosts();
+        }
+        return basketRepository.findTotalCostsById(basketID)
+                .orElseThrow(() -> new UnknownBasketIDException("Basket not found"));
+    }
+
+    @Override
+    public Map<String, BigDecimal> getTotalCosts(Collection<String> basketIDs) {
+        List<String> ids = basketIDs.stream().distinct().toList();
+        Map<String, BigDecimal> totals = new LinkedHashMap<>();
+        // In Bloecken abfragen, damit die IN-Liste begrenzt bleibt
+        for (int from = 0; from < ids.size(); from += TOTALS_QUERY_CHUNK_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + TOTALS_QUERY_CHUNK_SIZE, ids.size()));
+            for (BasketTotal total : basketRepository.findTotalCostsByIdIn(chunk)) {
+                totals.put(total.getBasketId(), total.getTotalCosts());
+            }
+        }
+        return totals;
     }
 
     @Override
@@ -113,11 +378,27 @@ public class BasketServiceImpl implements BasketService {
 
     @Override
     public Item getItem(String basketID, String itemID) {
-        Basket basket = getBasket(basketID);
-        return basket.getItems().stream()
-                .filter(item -> item.getId().equals(itemID))
-                .findFirst()
-                .orElseThrow(() -> new UnknownItemIDException("Item not found"));
+        Basket cached = basketCache.getIfPresent(basketID);
+        Item item = cached != null
+                ? cached.findItem(itemID)
+                : itemRepository.findByBasketIdAndBookId(basketID, itemID).orElse(null);
+        if (item != null) {
+            return item;
+        }
+        if (cached == null && !basketRepository.existsById(basketID)) {
+            throw new UnknownBasketIDException("Basket not found");
+        }
+        throw new UnknownItemIDException("Item not found");
+    }
+
+    @Override
+    public Page<ItemSummary> getItems(String basketID, Pageable pageable) {
+        Page<ItemSummary> page = itemRepository.findSummariesByBasketId(basketID, pageable);
+        // Existenz nur pruefen, wenn die Seite leer ist, damit der Normalfall eine Abfrage bleibt
+        if (page.isEmpty() && !basketRepository.existsById(basketID)) {
+            throw new UnknownBasketIDException("Basket not found");
+        }
+        return page;
     }
 
     @Override
@@ -127,50 +408,56 @@ public class BasketServiceImpl implements BasketService {
             throw new InvalidAmountException("Amount must be greater than zero");
         }
     
-        Basket basket = getBasket(basketID);
-        Item item = getItem(basketID, itemID);
-    
-        if (item.getAmount() < amount) {
+        if (itemRepository.decrementAmount(basketID, itemID, amount) == 0) {
+            if (!basketRepository.existsById(basketID)) {
+                throw new UnknownBasketIDException("Basket not found");
+            }
+            if (!itemRepository.existsByIdAndBasketId(itemID, basketID)) {
+                throw new UnknownItemIDException("Item not found");
+            }
             throw new InvalidAmountException("Not enough items to remove");
         }
-    
-        item.setAmount(item.getAmount() - amount);
-    
-        if (item.getAmount() == 0) {
-            basket.getItems().remove(item);
-            itemRepository.delete(item);
-        } else {
-            itemRepository.save(item);
-        }
-    
-        basketRepository.save(basket); // Save the basket after modifying items
+        // Vor dem Loeschen, solange der Preis des Artikels noch lesbar ist
+        basketRepository.addItemToTotals(basketID, itemID, -amount);
+        itemRepository.deleteIfEmpty(basketID, itemID);
+        eventOutbox.append(new BasketEvent.ItemRemoved(basketID, itemID, amount));
+
+        basketCache.invalidate(basketID);
         return true;
     }
 
     @Override
     @Transactional
     public Basket createBasket(String userId) {
-        Basket basket = new Basket();
+        // Ein vorhandener Warenkorb wird wie bisher geleert; ein neues Objekt mit derselben ID
+        // wuerde wegen der leeren Version als neu eingefuegt
+        Basket basket = basketRepository.findById(userId).orElseGet(Basket::new);
+        List<BasketEvent> events = new ArrayList<>();
+        for (Item item : basket.getItems()) {
+            events.add(new BasketEvent.ItemRemoved(userId, item.getId(), item.getAmount()));
+        }
         basket.setId(userId);
         basket.setUserId(userId);
-        return basketRepository.save(basket);
+        basket.clearItems();
+        basket.setTotalCosts(BigDecimal.ZERO);
+        basket.setItemCount(0);
+        Basket saved = basketRepository.save(basket);
+        if (!events.isEmpty()) {
+            // Geleerte Artikel erst loeschen, dann die Ereignisse schreiben
+            basketRepository.flush();
+            eventOutbox.append(userId, events);
+        }
+        basketCache.invalidate(userId);
+        return saved;
     }
 
-    public BigDecimal cleanAndConvertToBigDecimal(String price) {
-        if (price == null) {
-            return BigDecimal.ZERO; // oder werfe eine Exception, wenn das angemessener ist
-        }
-        
-        // Ersetzt alles, was keine Ziffer, kein Punkt oder kein Minuszeichen ist
-        String cleanedPrice = price.replaceAll("[^\\d.-]", "");
-        
-        try {
-            return new BigDecimal(cleanedPrice);
-        } catch (NumberFormatException e) {
-            // Logge den Fehler oder handle ihn entsprechend
-            System.err.println("Fehler beim Umwandeln des Preises: " + e.getMessage());
-            return BigDecimal.ZERO; // oder werfe eine Exception
-        }
+    /**
+     * Wandelt den Preis des BookService in einen BigDecimal um, siehe {@link PriceParser}.
+     * Ungültige Preise ergeben 0. Der Preis wird kaufmännisch auf Cent gerundet, wie ihn die
+     * Datenbank speichert, damit alle Speichermodi denselben Preis führen.
+     */
+    public static BigDecimal cleanAndConvertToBigDecimal(String price) {
+        return PriceParser.parse(price).setScale(Item.PRICE_SCALE, RoundingMode.HALF_UP);
     }
 
 }
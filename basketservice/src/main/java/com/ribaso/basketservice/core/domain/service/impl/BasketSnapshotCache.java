@@ -0,0 +1,80 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ribaso.basketservice.core.domain.model.Basket;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of fully loaded, detached basket snapshots. Snapshots are shared
+ * between callers and must be treated as read-only; mutations load the managed entity
+ * and invalidate the snapshot.
+ */
+@Component
+public class BasketSnapshotCache {
+
+    private final Cache<String, Basket> cache;
+
+    public BasketSnapshotCache(@Value("${basket.cache.max-size:10000}") long maxSize,
+                               @Value("${basket.cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached snapshot or the one built by the loader. A loader returning
+     * null (unknown basket) caches nothing.
+     */
+    public Basket get(String basketId, Function<String, Basket> loader) {
+        return cache.get(basketId, loader);
+    }
+
+    /**
+     * Returns the cached snapshot without loading it, or null.
+     */
+    public Basket getIfPresent(String basketId) {
+        return cache.getIfPresent(basketId);
+    }
+
+    /**
+     * Invalidates the snapshot now and again once the surrounding transaction has
+     * committed, so a concurrent reader cannot re-cache the pre-commit state.
+     */
+    public void invalidate(String basketId) {
+        cache.invalidate(basketId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(basketId);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Hit, miss and eviction counters since startup.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
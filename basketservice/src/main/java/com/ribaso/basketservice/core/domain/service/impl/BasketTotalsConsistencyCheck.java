@@ -0,0 +1,131 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import com.ribaso.basketservice.core.domain.model.BasketTotalsDrift;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically recomputes the stored basket totals from the items, in batches of basket
+ * IDs, and reports (and by default repairs) baskets whose stored totals have drifted.
+ * Also fills in the totals of baskets written before they were maintained.
+ */
+@Component
+@ConditionalOnProperty(name = "basket.storage.mode", havingValue = "jpa", matchIfMissing = true)
+public class BasketTotalsConsistencyCheck {
+
+    private static final Logger log = LoggerFactory.getLogger(BasketTotalsConsistencyCheck.class);
+
+    private final BasketRepository basketRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final boolean repair;
+
+    private final AtomicLong checkedCount = new AtomicLong();
+
+    private final AtomicLong driftCount = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler;
+
+    public BasketTotalsConsistencyCheck(BasketRepository basketRepository, TransactionTemplate transactionTemplate,
+            @Value("${basket.totals-check.interval:1h}") Duration interval,
+            @Value("${basket.totals-check.batch-size:500}") int batchSize,
+            @Value("${basket.totals-check.repair:true}") boolean repair) {
+        this.basketRepository = basketRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.repair = repair;
+        if (interval.isZero()) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "basket-totals-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks all baskets once and returns the number of baskets whose totals had drifted.
+     */
+    public synchronized int check() {
+        int drifted = 0;
+        String after = "";
+        List<String> batch;
+        do {
+            batch = basketRepository.findIdsAfter(after, Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            drifted += checkBatch(batch);
+            checkedCount.addAndGet(batch.size());
+            after = batch.get(batch.size() - 1);
+        } while (batch.size() == batchSize);
+        return drifted;
+    }
+
+    public long getCheckedCount() {
+        return checkedCount.get();
+    }
+
+    public long getDriftCount() {
+        return driftCount.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private int checkBatch(List<String> basketIds) {
+        List<BasketTotalsDrift> drifts = basketRepository.findTotalsDrift(basketIds);
+        for (BasketTotalsDrift drift : drifts) {
+            log.warn("Basket {} totals drifted: stored {} / {} items, computed {} / {} items",
+                    drift.getBasketId(), drift.getStoredTotalCosts(), drift.getStoredItemCount(),
+                    drift.getTotalCosts(), drift.getItemCount());
+            if (repair) {
+                // Eigene kurze Transaktion je Warenkorb, damit keine Sperren ueber den Batch gehalten werden
+                transactionTemplate.executeWithoutResult(status -> {
+                    basketRepository.lockById(drift.getBasketId());
+                    basketRepository.recomputeTotals(drift.getBasketId());
+                });
+            }
+        }
+        driftCount.addAndGet(drifts.size());
+        return drifts.size();
+    }
+
+    private void checkQuietly() {
+        try {
+            int drifted = check();
+            if (drifted > 0) {
+                log.info("Basket totals check found {} drifted baskets", drifted);
+            }
+        } catch (RuntimeException e) {
+            log.error("Basket totals check failed, will retry", e);
+        }
+    }
+}
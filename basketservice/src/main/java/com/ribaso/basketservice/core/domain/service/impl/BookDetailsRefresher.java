@@ -0,0 +1,100 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.ItemRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies changed book titles and prices to the items already in baskets. A batch of
+ * changed books costs three statements however many baskets hold them: one UPDATE of the
+ * items, then the affected baskets are locked and their totals recomputed in one UPDATE.
+ * Only used with {@code jpa} storage; resident write-behind baskets keep their prices.
+ */
+@Component
+@ConditionalOnProperty(name = "basket.storage.mode", havingValue = "jpa", matchIfMissing = true)
+public class BookDetailsRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(BookDetailsRefresher.class);
+
+    private final ItemRepository itemRepository;
+
+    private final BasketRepository basketRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BasketSnapshotCache basketCache;
+
+    private final AtomicLong updatedItemCount = new AtomicLong();
+
+    public BookDetailsRefresher(ItemRepository itemRepository, BasketRepository basketRepository,
+            TransactionTemplate transactionTemplate, BasketSnapshotCache basketCache) {
+        this.itemRepository = itemRepository;
+        this.basketRepository = basketRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.basketCache = basketCache;
+    }
+
+    /**
+     * Updates name and price of all items of the given books and the totals of their
+     * baskets. A book without title or with an unreadable price keeps the stored value.
+     *
+     * @return number of items changed
+     */
+    public int refresh(Collection<Book> books) {
+        Map<String, String> titles = new HashMap<>();
+        Map<String, BigDecimal> prices = new HashMap<>();
+        for (Book book : books) {
+            if (book.getTitle() != null) {
+                titles.put(book.getId(), book.getTitle());
+            }
+            // Nicht parse(): ein unlesbarer Preis wuerde alle Artikel des Buchs auf 0 setzen
+            BigDecimal price = PriceParser.parseOrNull(book.getPrice());
+            if (price != null) {
+                // Auf Cent gerundet wie beim Hinzufuegen; sonst gaelte jeder Artikel als geaendert
+                prices.put(book.getId(), price.setScale(Item.PRICE_SCALE, RoundingMode.HALF_UP));
+            } else {
+                log.warn("Ignoring unreadable price '{}' of book {}", book.getPrice(), book.getId());
+            }
+        }
+        if (titles.isEmpty() && prices.isEmpty()) {
+            return 0;
+        }
+        Set<String> bookIds = new HashSet<>(titles.keySet());
+        bookIds.addAll(prices.keySet());
+        int updated = transactionTemplate.execute(status -> {
+            int items = itemRepository.updateBookDetails(titles, prices);
+            if (items > 0) {
+                // Artikel vor Warenkoerben sperren, wie alle anderen Aenderungen
+                List<String> basketIds = basketRepository.lockByBookIds(bookIds);
+                if (!prices.isEmpty()) {
+                    basketRepository.recomputeTotalsByBookIds(bookIds);
+                }
+                basketIds.forEach(basketCache::invalidate);
+            }
+            return items;
+        });
+        updatedItemCount.addAndGet(updated);
+        return updated;
+    }
+
+    public long getUpdatedItemCount() {
+        return updatedItemCount.get();
+    }
+}
@@ -0,0 +1,54 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns book IDs and titles to int codes, so a basket line stores two ints instead of two
+ * strings and each distinct string is held once for all baskets. Codes are never released;
+ * the dictionary grows with the catalog, not with the number of baskets.
+ */
+final class BookDictionary {
+
+    static final int NULL_CODE = -1;
+
+    private final ConcurrentMap<String, Integer> codes = new ConcurrentHashMap<>();
+
+    private volatile String[] values = new String[1024];
+
+    private int size;
+
+    int intern(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            // Erst den Wert ablegen, dann den Code veroeffentlichen
+            current[size] = value;
+            values = current;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    String get(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    int size() {
+        return codes.size();
+    }
+}
@@ -0,0 +1,345 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.service.interfaces.ResidentBasketStore;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Keeps each basket as one block of fixed-size lines instead of {@link Item} objects. Book
+ * IDs and titles are interned in a {@link BookDictionary} shared by all baskets, amounts are
+ * ints and prices are longs in cents. A line takes {@value #LINE_BYTES} bytes; with
+ * {@code offHeap} the blocks are direct buffers outside the Java heap.
+ * <p>
+ * Baskets are converted to and from {@link Basket} on every read and change; both
+ * synchronize on the basket. A change writes its lines into the basket's block in place.
+ * The block only grows, in powers of two, when the basket outgrows it. Direct buffers are
+ * freed by the garbage collector only, so blocks of removed or outgrown baskets are kept in
+ * a bounded pool and reused instead of allocating new ones. Prices with more than two
+ * decimals cannot be stored; the services round item prices to cents beforehand.
+ */
+public class CompactBasketStore implements ResidentBasketStore {
+
+    // Aufbau einer Zeile: Buch-Code, Titel-Code, Menge, Preis in Cent, Version des Artikels
+    private static final int BOOK = 0;
+    private static final int TITLE = 4;
+    private static final int AMOUNT = 8;
+    private static final int PRICE = 12;
+    private static final int VERSION = 20;
+
+    static final int LINE_BYTES = 28;
+
+    private static final int PRICE_SCALE = 2;
+
+    private static final long NO_VERSION = -1;
+
+    private static final byte[] NO_LINES = new byte[0];
+
+    // Kleinster Block in Zeilen; Bloecke wachsen in Zweierpotenzen
+    private static final int MIN_BLOCK_LINES = 4;
+
+    // Freie direkte Puffer je Blockgroesse; darueber hinaus raeumt sie der GC ab
+    private static final int MAX_POOLED_PER_SIZE = 256;
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final ConcurrentMap<String, CompactBasket> baskets = new ConcurrentHashMap<>();
+
+    private final BookDictionary dictionary = new BookDictionary();
+
+    private final boolean offHeap;
+
+    // Index: log2 der Blockgroesse in Zeilen
+    @SuppressWarnings("unchecked")
+    private final Queue<ByteBuffer>[] pooledBuffers = new Queue[Integer.SIZE];
+
+    private final AtomicIntegerArray pooledCounts = new AtomicIntegerArray(Integer.SIZE);
+
+    private final LongAdder allocatedBlocks = new LongAdder();
+
+    public CompactBasketStore(boolean offHeap) {
+        this.offHeap = offHeap;
+        for (int i = 0; i < pooledBuffers.length; i++) {
+            pooledBuffers[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    @Override
+    public <R> R read(String basketId, Function<Basket, R> reader) {
+        CompactBasket compact = baskets.get(basketId);
+        if (compact == null) {
+            return null;
+        }
+        Basket basket;
+        synchronized (compact) {
+            // Inzwischen entfernt oder ersetzt, der Block gehoert evtl. schon einem anderen Warenkorb
+            if (compact.released) {
+                return null;
+            }
+            basket = decode(basketId, compact);
+        }
+        return reader.apply(basket);
+    }
+
+    @Override
+    public <R> R update(String basketId, Function<Basket, R> mutation) {
+        CompactBasket compact = baskets.get(basketId);
+        if (compact == null) {
+            return null;
+        }
+        synchronized (compact) {
+            if (compact.released) {
+                return null;
+            }
+            Basket basket = decode(basketId, compact);
+            R result = mutation.apply(basket);
+            write(compact, basket);
+            return result;
+        }
+    }
+
+    @Override
+    public void put(Basket basket) {
+        CompactBasket previous = baskets.put(basket.getId(), encode(basket));
+        if (previous != null) {
+            release(previous);
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(Basket basket) {
+        CompactBasket compact = encode(basket);
+        if (baskets.putIfAbsent(basket.getId(), compact) != null) {
+            release(compact);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String remove(String basketId) {
+        CompactBasket compact = baskets.remove(basketId);
+        if (compact == null) {
+            return null;
+        }
+        release(compact);
+        return compact.userId;
+    }
+
+    @Override
+    public boolean removeIf(String basketId, BooleanSupplier condition) {
+        CompactBasket compact = baskets.get(basketId);
+        if (compact == null) {
+            return false;
+        }
+        synchronized (compact) {
+            if (compact.released || !condition.getAsBoolean() || !baskets.remove(basketId, compact)) {
+                return false;
+            }
+            release(compact);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean contains(String basketId) {
+        return baskets.containsKey(basketId);
+    }
+
+    @Override
+    public int size() {
+        return baskets.size();
+    }
+
+    /**
+     * Distinct book IDs and titles held in the dictionary.
+     */
+    public int getDictionarySize() {
+        return dictionary.size();
+    }
+
+    /**
+     * Blocks allocated since startup, without blocks taken from the pool.
+     */
+    public long getAllocatedBlocks() {
+        return allocatedBlocks.sum();
+    }
+
+    private CompactBasket encode(Basket basket) {
+        CompactBasket compact = new CompactBasket();
+        write(compact, basket);
+        return compact;
+    }
+
+    /**
+     * Schreibt den Warenkorb in den Block, der nur bei Bedarf waechst. Der Aufrufer haelt die
+     * Sperre von {@code compact}, sofern der Eintrag schon in der Map liegt.
+     */
+    private void write(CompactBasket compact, Basket basket) {
+        List<Item> items = basket.getItems();
+        // Erst pruefen, damit eine Exception keinen halb geschriebenen Block hinterlaesst
+        for (Item item : items) {
+            toCents(item.getPrice());
+        }
+        int bytes = items.size() * LINE_BYTES;
+        if (bytes > length(compact.lines)) {
+            Object grown = allocate(blockLines(items.size()));
+            recycle(compact.lines);
+            compact.lines = grown;
+        }
+        Object lines = compact.lines;
+        int offset = 0;
+        for (Item item : items) {
+            putInt(lines, offset + BOOK, dictionary.intern(item.getId()));
+            putInt(lines, offset + TITLE, dictionary.intern(item.getName()));
+            putInt(lines, offset + AMOUNT, item.getAmount());
+            putLong(lines, offset + PRICE, toCents(item.getPrice()));
+            putLong(lines, offset + VERSION, item.getVersion() != null ? item.getVersion() : NO_VERSION);
+            offset += LINE_BYTES;
+        }
+        compact.usedBytes = bytes;
+        // Meist ist die User-ID die Warenkorb-ID, dann wird der String nicht doppelt gehalten
+        compact.userId = basket.getId().equals(basket.getUserId()) ? basket.getId() : basket.getUserId();
+        compact.version = basket.getVersion() != null ? basket.getVersion() : NO_VERSION;
+    }
+
+    private Basket decode(String basketId, CompactBasket compact) {
+        Basket basket = new Basket();
+        basket.setId(basketId);
+        basket.setUserId(compact.userId);
+        basket.setVersion(compact.version != NO_VERSION ? compact.version : null);
+        Object lines = compact.lines;
+        long totalCents = 0;
+        int itemCount = 0;
+        for (int offset = 0; offset < compact.usedBytes; offset += LINE_BYTES) {
+            Item item = new Item();
+            item.setId(dictionary.get(getInt(lines, offset + BOOK)));
+            item.setName(dictionary.get(getInt(lines, offset + TITLE)));
+            int amount = getInt(lines, offset + AMOUNT);
+            long cents = getLong(lines, offset + PRICE);
+            long version = getLong(lines, offset + VERSION);
+            item.setAmount(amount);
+            item.setPrice(BigDecimal.valueOf(cents, PRICE_SCALE));
+            item.setVersion(version != NO_VERSION ? version : null);
+            basket.addItem(item);
+            totalCents = Math.addExact(totalCents, Math.multiplyExact(cents, amount));
+            itemCount += amount;
+        }
+        // Summen in Cent statt ueber BigDecimal, wie recalculateTotals, nur ohne Zwischenobjekte
+        basket.setTotalCosts(BigDecimal.valueOf(totalCents, PRICE_SCALE));
+        basket.setItemCount(itemCount);
+        return basket;
+    }
+
+    private static long toCents(BigDecimal price) {
+        try {
+            return price.setScale(PRICE_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price " + price + " cannot be stored in cents", e);
+        }
+    }
+
+    private static int blockLines(int lines) {
+        return Math.max(MIN_BLOCK_LINES, Integer.highestOneBit(lines - 1) << 1);
+    }
+
+    private Object allocate(int lines) {
+        if (offHeap) {
+            int size = Integer.numberOfTrailingZeros(lines);
+            ByteBuffer pooled = pooledBuffers[size].poll();
+            if (pooled != null) {
+                pooledCounts.decrementAndGet(size);
+                return pooled;
+            }
+        }
+        allocatedBlocks.increment();
+        return offHeap ? ByteBuffer.allocateDirect(lines * LINE_BYTES) : new byte[lines * LINE_BYTES];
+    }
+
+    /**
+     * Gibt den Block frei; niemand darf ihn danach noch lesen.
+     */
+    private void recycle(Object lines) {
+        if (lines instanceof ByteBuffer buffer) {
+            int size = Integer.numberOfTrailingZeros(buffer.capacity() / LINE_BYTES);
+            if (pooledCounts.incrementAndGet(size) <= MAX_POOLED_PER_SIZE) {
+                pooledBuffers[size].offer(buffer);
+            } else {
+                pooledCounts.decrementAndGet(size);
+            }
+        }
+    }
+
+    // Nach dem Entfernen aus der Map: wer den Eintrag noch haelt, sieht released und liest nicht mehr
+    private void release(CompactBasket compact) {
+        synchronized (compact) {
+            compact.released = true;
+            recycle(compact.lines);
+            compact.lines = NO_LINES;
+            compact.usedBytes = 0;
+        }
+    }
+
+    private static int length(Object lines) {
+        return lines instanceof byte[] bytes ? bytes.length : ((ByteBuffer) lines).capacity();
+    }
+
+    private static int getInt(Object lines, int offset) {
+        return lines instanceof byte[] bytes ? (int) INT.get(bytes, offset) : ((ByteBuffer) lines).getInt(offset);
+    }
+
+    private static long getLong(Object lines, int offset) {
+        return lines instanceof byte[] bytes ? (long) LONG.get(bytes, offset) : ((ByteBuffer) lines).getLong(offset);
+    }
+
+    private static void putInt(Object lines, int offset, int value) {
+        if (lines instanceof byte[] bytes) {
+            INT.set(bytes, offset, value);
+        } else {
+            ((ByteBuffer) lines).putInt(offset, value);
+        }
+    }
+
+    private static void putLong(Object lines, int offset, long value) {
+        if (lines instanceof byte[] bytes) {
+            LONG.set(bytes, offset, value);
+        } else {
+            ((ByteBuffer) lines).putLong(offset, value);
+        }
+    }
+
+    /**
+     * Ein Warenkorb im Store; Lesen und Schreiben nur unter seiner Sperre.
+     */
+    private static final class CompactBasket {
+
+        private String userId;
+
+        private long version;
+
+        // byte[] auf dem Heap oder direkter ByteBuffer, mindestens usedBytes gross
+        private Object lines = NO_LINES;
+
+        private int usedBytes;
+
+        // Aus der Map entfernt oder ersetzt; der Block gehoert dann nicht mehr dazu
+        private boolean released;
+    }
+}
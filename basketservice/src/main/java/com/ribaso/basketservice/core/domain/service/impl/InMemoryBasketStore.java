@@ -0,0 +1,357 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.ItemRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.ResidentBasketStore;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Keeps baskets in memory and writes changed baskets back to the {@link BasketRepository}
+ * in batches. Changes become durable at the latest after the configured max staleness
+ * (plus the time of the flush itself) and when the application shuts down. The layout of
+ * the resident baskets is chosen with {@code basket.storage.write-behind.layout}. Baskets
+ * without pending changes that were not used for {@code basket.storage.write-behind.idle-eviction}
+ * are dropped from memory after a flush and loaded again on their next use.
+ */
+@Component
+@ConditionalOnProperty(name = "basket.storage.mode", havingValue = "write-behind")
+public class InMemoryBasketStore {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryBasketStore.class);
+
+    private final BasketRepository basketRepository;
+
+    private final ItemRepository itemRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int flushBatchSize;
+
+    private final ResidentBasketStore baskets;
+
+    private final ConcurrentMap<String, String> basketIdsByUserId = new ConcurrentHashMap<>();
+
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+
+    // Letzter Zugriff je Warenkorb in System.nanoTime(), Grundlage der Verdraengung
+    private final ConcurrentMap<String, Long> lastAccess = new ConcurrentHashMap<>();
+
+    private final long idleEvictionNanos;
+
+    private final LongAdder evicted = new LongAdder();
+
+    private final ScheduledExecutorService scheduler;
+
+    public InMemoryBasketStore(BasketRepository basketRepository, ItemRepository itemRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${basket.storage.write-behind.max-staleness:5s}") Duration maxStaleness,
+            @Value("${basket.storage.write-behind.flush-batch-size:100}") int flushBatchSize,
+            @Value("${basket.storage.write-behind.layout:objects}") String layout,
+            @Value("${basket.storage.write-behind.idle-eviction:10m}") Duration idleEviction) {
+        this.baskets = switch (layout) {
+            case "objects" -> new ObjectBasketStore();
+            case "compact" -> new CompactBasketStore(false);
+            case "off-heap" -> new CompactBasketStore(true);
+            default -> throw new IllegalArgumentException("Unknown basket layout " + layout);
+        };
+        this.basketRepository = basketRepository;
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.flushBatchSize = flushBatchSize;
+        this.idleEvictionNanos = idleEviction.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "basket-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = maxStaleness.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the reader on the basket, loading it first if it is not resident. The basket must
+     * not escape the reader.
+     */
+    public <R> Optional<R> read(String basketId, Function<Basket, R> reader) {
+        while (isResident(basketId)) {
+            touch(basketId);
+            R result = baskets.read(basketId, reader);
+            if (result != null || baskets.contains(basketId)) {
+                return Optional.ofNullable(result);
+            }
+            // Zwischen Laden und Lesen verdraengt, erneut laden
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Runs the reader on the basket only if it is already in memory; never loads it.
+     */
+    public <R> Optional<R> readIfResident(String basketId, Function<Basket, R> reader) {
+        return Optional.ofNullable(baskets.read(basketId, reader));
+    }
+
+    /**
+     * Whether the basket was removed in memory and its deletion is not yet flushed.
+     */
+    public boolean isRemoved(String basketId) {
+        return deleted.contains(basketId);
+    }
+
+    /**
+     * Applies the mutation to the basket, loading it first if it is not resident, and
+     * schedules the basket for the next flush unless the mutation throws.
+     */
+    public <R> Optional<R> update(String basketId, Function<Basket, R> mutation) {
+        while (isResident(basketId)) {
+            touch(basketId);
+            R result = baskets.update(basketId, basket -> {
+                R applied = mutation.apply(basket);
+                // Noch unter der Sperre des Warenkorbs markieren, sonst koennte ihn die Verdraengung
+                // mit der ungespeicherten Aenderung entfernen
+                dirty.add(basketId);
+                return applied;
+            });
+            if (result != null || baskets.contains(basketId)) {
+                return Optional.ofNullable(result);
+            }
+            // Zwischen Laden und Aendern verdraengt oder ersetzt, erneut versuchen
+        }
+        return Optional.empty();
+    }
+
+    public boolean exists(String basketId) {
+        return isResident(basketId);
+    }
+
+    public Optional<String> findIdByUserId(String userId) {
+        String basketId = basketIdsByUserId.get(userId);
+        if (basketId != null) {
+            return isResident(basketId) ? Optional.of(basketId) : Optional.empty();
+        }
+        return basketRepository.findByUserId(userId)
+                .map(Basket::getId)
+                .filter(this::isResident);
+    }
+
+    /**
+     * Stores the new basket and returns a copy of it.
+     */
+    public Basket create(Basket basket) {
+        Basket copy = basket.copy();
+        deleted.remove(basket.getId());
+        touch(basket.getId());
+        baskets.put(basket);
+        if (basket.getUserId() != null) {
+            basketIdsByUserId.put(basket.getUserId(), basket.getId());
+        }
+        dirty.add(basket.getId());
+        return copy;
+    }
+
+    public boolean remove(String basketId) {
+        if (!isResident(basketId)) {
+            return false;
+        }
+        String userId = baskets.remove(basketId);
+        if (userId != null) {
+            basketIdsByUserId.remove(userId, basketId);
+        }
+        dirty.remove(basketId);
+        deleted.add(basketId);
+        lastAccess.remove(basketId);
+        return true;
+    }
+
+    public int getDirtyCount() {
+        return dirty.size() + deleted.size();
+    }
+
+    public int getResidentCount() {
+        return baskets.size();
+    }
+
+    /**
+     * Number of baskets dropped from memory because they were idle.
+     */
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    /**
+     * Writes all pending changes to the repository, then drops idle baskets from memory. If a
+     * batch fails, it and all batches after it stay pending for the next flush.
+     */
+    public synchronized void flush() {
+        List<String> deletions = drain(deleted);
+        for (int from = 0; from < deletions.size(); from += flushBatchSize) {
+            List<String> batch = deletions.subList(from, Math.min(from + flushBatchSize, deletions.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> basketRepository.deleteAllById(batch));
+            } catch (RuntimeException e) {
+                deleted.addAll(deletions.subList(from, deletions.size()));
+                throw e;
+            }
+        }
+
+        List<String> changes = drain(dirty);
+        for (int from = 0; from < changes.size(); from += flushBatchSize) {
+            List<String> batch = changes.subList(from, Math.min(from + flushBatchSize, changes.size()));
+            List<Basket> snapshots = new ArrayList<>(batch.size());
+            for (String basketId : batch) {
+                Basket snapshot = baskets.read(basketId, Basket::copy);
+                if (snapshot != null) {
+                    snapshots.add(snapshot);
+                }
+            }
+            List<Basket> saved;
+            try {
+                saved = transactionTemplate.execute(status -> {
+                    adoptPersistedVersions(snapshots);
+                    return basketRepository.saveAll(snapshots);
+                });
+            } catch (RuntimeException e) {
+                dirty.addAll(changes.subList(from, changes.size()));
+                throw e;
+            }
+            // Die neuen Versionen zurueckschreiben, sonst scheitert der naechste Flush an der Versionspruefung
+            for (Basket basket : saved) {
+                baskets.update(basket.getId(), live -> copyVersions(basket, live));
+            }
+        }
+
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    private boolean isResident(String basketId) {
+        if (baskets.contains(basketId)) {
+            return true;
+        }
+        return !deleted.contains(basketId) && load(basketId);
+    }
+
+    private boolean load(String basketId) {
+        Optional<Basket> loaded = transactionTemplate.execute(status ->
+                basketRepository.findWithItemsById(basketId).map(Basket::copy));
+        if (loaded.isEmpty()) {
+            return false;
+        }
+        Basket basket = loaded.get();
+        // Gespeicherte Summen nicht ungeprueft uebernehmen, die Artikel sind ohnehin geladen
+        basket.recalculateTotals();
+        touch(basketId);
+        if (baskets.putIfAbsent(basket) && basket.getUserId() != null) {
+            basketIdsByUserId.put(basket.getUserId(), basketId);
+        }
+        return true;
+    }
+
+    private void touch(String basketId) {
+        lastAccess.put(basketId, System.nanoTime());
+    }
+
+    private void evictIdle() {
+        if (idleEvictionNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Map.Entry<String, Long> entry : lastAccess.entrySet()) {
+            String basketId = entry.getKey();
+            Long accessed = entry.getValue();
+            if (now - accessed < idleEvictionNanos) {
+                continue;
+            }
+            String userId = baskets.read(basketId, Basket::getUserId);
+            // Unter der Sperre des Warenkorbs: keine ausstehende Aenderung und seither nicht benutzt
+            boolean removed = baskets.removeIf(basketId, () -> !dirty.contains(basketId)
+                    && !deleted.contains(basketId) && accessed.equals(lastAccess.get(basketId)));
+            if (removed) {
+                lastAccess.remove(basketId, accessed);
+                if (userId != null) {
+                    basketIdsByUserId.remove(userId, basketId);
+                }
+                evicted.increment();
+            }
+        }
+    }
+
+    /**
+     * A basket or item that was removed and added again before the flush still has its row,
+     * but no version in memory. Without the persisted version the save would insert it again.
+     */
+    private void adoptPersistedVersions(List<Basket> snapshots) {
+        for (Basket basket : snapshots) {
+            if (basket.getVersion() == null) {
+                basketRepository.findVersionById(basket.getId()).ifPresent(basket::setVersion);
+            }
+            for (Item item : basket.getItems()) {
+                if (item.getVersion() == null) {
+                    itemRepository.findVersionByBasketIdAndBookId(basket.getId(), item.getId()).ifPresent(item::setVersion);
+                }
+            }
+        }
+    }
+
+    private static boolean copyVersions(Basket saved, Basket live) {
+        live.setVersion(saved.getVersion());
+        for (Item item : live.getItems()) {
+            // Erst nach dem Snapshot hinzugefuegte Artikel bleiben ohne Version und werden neu eingefuegt
+            Item savedItem = saved.findItem(item.getId());
+            if (savedItem != null) {
+                item.setVersion(savedItem.getVersion());
+            }
+        }
+        return true;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Flushing baskets failed, will retry", e);
+        }
+    }
+
+    private static List<String> drain(Set<String> ids) {
+        List<String> drained = new ArrayList<>();
+        Iterator<String> iterator = ids.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,270 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperationResult;
+import com.ribaso.basketservice.core.domain.model.BasketSummary;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.model.ItemSummary;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import com.ribaso.basketservice.port.exception.BasketBusyException;
+import com.ribaso.basketservice.port.exception.InvalidAmountException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Runs all mutations of a basket on one of a fixed number of single-threaded lanes, picked
+ * by the hash of the basket ID. Mutations of the same basket are applied one after another
+ * in this process and no longer contend in the database, while different baskets spread
+ * over all lanes. Each lane has a bounded queue; a mutation that finds its lane full is
+ * rejected with {@link BasketBusyException} instead of waiting. Reads bypass the lanes.
+ * <p>
+ * Book details of added items are looked up before the mutation is queued, so a lane only
+ * runs the database change and never waits for the book service. The lookup result lands
+ * in the book details cache, where the wrapped service finds it.
+ */
+public class LaneBasketService implements BasketService, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LaneBasketService.class);
+
+    private final BasketService delegate;
+
+    private final GetBookDetails getBookDetails;
+
+    private final ThreadPoolExecutor[] lanes;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public LaneBasketService(BasketService delegate, GetBookDetails getBookDetails, int laneCount, int queueCapacity) {
+        if (laneCount < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("laneCount and queueCapacity must be at least 1");
+        }
+        this.delegate = delegate;
+        this.getBookDetails = getBookDetails;
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = "basket-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    @Override
+    public Basket createBasket(String userId) {
+        // Die Warenkorb-ID ist die User-ID, siehe BasketServiceImpl
+        return inLane(userId, () -> delegate.createBasket(userId));
+    }
+
+    @Override
+    public Basket getBasket(String basketID) {
+        return delegate.getBasket(basketID);
+    }
+
+    @Override
+    public long getBasketVersion(String basketID) {
+        return delegate.getBasketVersion(basketID);
+    }
+
+    @Override
+    public Long getBasketVersion(Basket basket) {
+        return delegate.getBasketVersion(basket);
+    }
+
+    @Override
+    public BasketSummary getBasketSummary(String basketID) {
+        return delegate.getBasketSummary(basketID);
+    }
+
+    @Override
+    public boolean removeBasket(String basketID) {
+        return inLane(basketID, () -> delegate.removeBasket(basketID));
+    }
+
+    @Override
+    public BigDecimal getTotalCosts(String basketID) {
+        return delegate.getTotalCosts(basketID);
+    }
+
+    @Override
+    public Map<String, BigDecimal> getTotalCosts(Collection<String> basketIDs) {
+        return delegate.getTotalCosts(basketIDs);
+    }
+
+    @Override
+    public String getBasketID(String userID) {
+        return delegate.getBasketID(userID);
+    }
+
+    @Override
+    public Item getItem(String basketID, String itemID) {
+        return delegate.getItem(basketID, itemID);
+    }
+
+    @Override
+    public Page<ItemSummary> getItems(String basketID, Pageable pageable) {
+        return delegate.getItems(basketID, pageable);
+    }
+
+    @Override
+    public boolean addItem(String basketID, String itemID, int amount) throws IOException {
+        if (amount <= 0) {
+            throw new InvalidAmountException("Amount must be greater than zero");
+        }
+        prefetchBookDetails(basketID, List.of(new BasketItemOperation(BasketItemOperation.Type.ADD, itemID, amount)));
+        return inLane(basketID, () -> delegate.addItem(basketID, itemID, amount));
+    }
+
+    /**
+     * Looks up the book without blocking and queues the mutation once the details are there.
+     * As in the wrapped services, a failed lookup fails the returned future.
+     */
+    @Override
+    public CompletableFuture<Boolean> addItemAsync(String basketID, String itemID, int amount) {
+        if (amount <= 0) {
+            throw new InvalidAmountException("Amount must be greater than zero");
+        }
+        return getBookDetails.getBookDetailsAsync(itemID)
+                .thenCompose(book -> submit(basketID, () -> delegate.addItem(basketID, itemID, amount)));
+    }
+
+    @Override
+    public boolean removeItem(String basketID, String itemID, int amount) {
+        return inLane(basketID, () -> delegate.removeItem(basketID, itemID, amount));
+    }
+
+    @Override
+    public List<BasketItemOperationResult> applyItemOperations(String basketID, List<BasketItemOperation> operations) {
+        prefetchBookDetails(basketID, operations);
+        return inLane(basketID, () -> delegate.applyItemOperations(basketID, operations));
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Mutations waiting in the queue of the lane, not counting the one running.
+     */
+    public int getQueueDepth(int lane) {
+        return lanes[lane].getQueue().size();
+    }
+
+    /**
+     * Mutations rejected because the lane of their basket was full.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Stops accepting mutations and lets the queued ones finish.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Basket lane did not drain in time, {} mutations dropped", lane.shutdownNow().size());
+            }
+        }
+    }
+
+    /**
+     * Index of the lane that runs the mutations of the basket.
+     */
+    public int laneOf(String basketID) {
+        int hash = basketID.hashCode();
+        // Hoehere Bits einmischen wie in HashMap, damit aehnliche IDs nicht auf derselben Lane landen
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    /**
+     * Laedt die Buchdetails aller Artikel, die die Operationen neu anlegen koennten, im Thread des
+     * Aufrufers in den Cache. Unbekannte Buecher bleiben negativ gecacht und werden von der Aenderung
+     * selbst gemeldet. Scheitert die Abfrage anders, etwa mit einem Timeout, gilt das nur fuer Artikel,
+     * die noch nicht im Warenkorb liegen; sonst wuerde die Lane selbst auf den BookService warten.
+     */
+    private void prefetchBookDetails(String basketID, List<BasketItemOperation> operations) {
+        Set<String> itemIDs = BasketItemOperation.itemsNeedingBookDetails(operations, Set.of());
+        if (itemIDs.isEmpty()) {
+            return;
+        }
+        try {
+            getBookDetails.getBookDetails(itemIDs);
+        } catch (RuntimeException e) {
+            Set<String> existing = delegate.getBasket(basketID).getItems().stream()
+                    .map(Item::getId)
+                    .collect(Collectors.toSet());
+            if (!BasketItemOperation.itemsNeedingBookDetails(operations, existing).isEmpty()) {
+                throw e;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, E extends Exception> T inLane(String basketID, Mutation<T, E> mutation) throws E {
+        CompletableFuture<T> result = submit(basketID, mutation);
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BasketBusyException("Interrupted while waiting for the basket");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw (E) cause;
+        }
+    }
+
+    private <T, E extends Exception> CompletableFuture<T> submit(String basketID, Mutation<T, E> mutation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            lanes[laneOf(basketID)].execute(() -> {
+                try {
+                    result.complete(mutation.run());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BasketBusyException("Too many pending changes for this basket, please retry");
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface Mutation<T, E extends Exception> {
+        T run() throws E;
+    }
+}
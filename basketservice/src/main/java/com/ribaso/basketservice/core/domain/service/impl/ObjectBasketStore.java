@@ -0,0 +1,82 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.service.interfaces.ResidentBasketStore;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Keeps the baskets as {@link Basket} objects with their items and synchronizes on the
+ * basket. Fastest to read and change, but every line costs an {@code Item} with its strings
+ * and {@code BigDecimal}.
+ */
+public class ObjectBasketStore implements ResidentBasketStore {
+
+    private final ConcurrentMap<String, Basket> baskets = new ConcurrentHashMap<>();
+
+    @Override
+    public <R> R read(String basketId, Function<Basket, R> reader) {
+        Basket basket = baskets.get(basketId);
+        if (basket == null) {
+            return null;
+        }
+        synchronized (basket) {
+            return reader.apply(basket);
+        }
+    }
+
+    @Override
+    public <R> R update(String basketId, Function<Basket, R> mutation) {
+        Basket basket = baskets.get(basketId);
+        if (basket == null) {
+            return null;
+        }
+        synchronized (basket) {
+            // Inzwischen entfernt oder ersetzt: die Aenderung ginge verloren
+            if (baskets.get(basketId) != basket) {
+                return null;
+            }
+            return mutation.apply(basket);
+        }
+    }
+
+    @Override
+    public void put(Basket basket) {
+        baskets.put(basket.getId(), basket);
+    }
+
+    @Override
+    public boolean putIfAbsent(Basket basket) {
+        return baskets.putIfAbsent(basket.getId(), basket) == null;
+    }
+
+    @Override
+    public String remove(String basketId) {
+        Basket basket = baskets.remove(basketId);
+        return basket != null ? basket.getUserId() : null;
+    }
+
+    @Override
+    public boolean removeIf(String basketId, BooleanSupplier condition) {
+        Basket basket = baskets.get(basketId);
+        if (basket == null) {
+            return false;
+        }
+        synchronized (basket) {
+            return condition.getAsBoolean() && baskets.remove(basketId, basket);
+        }
+    }
+
+    @Override
+    public boolean contains(String basketId) {
+        return baskets.containsKey(basketId);
+    }
+
+    @Override
+    public int size() {
+        return baskets.size();
+    }
+}
@@ -0,0 +1,133 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parses the price strings sent by the book service, e.g. "12.99", "12,99 €",
+ * "EUR 1.234,56" or "1,234.56", in a single pass without regex or intermediate strings.
+ * <p>
+ * Text before the number (currency, spaces) is skipped, the number ends at the first
+ * character that cannot belong to it. '.' and ',' are both accepted as decimal and
+ * thousands separators: with both present the last one is the decimal separator and a
+ * separator that occurs more than once groups thousands. A single separator on its own is
+ * always the decimal separator, so "1.125" and "1,250 €" keep their three decimals. Spaces
+ * and apostrophes between digits group thousands.
+ */
+public final class PriceParser {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceParser.class);
+
+    // Mehr Stellen passen nicht sicher in einen long
+    private static final int MAX_DIGITS = 18;
+
+    private static final LongAdder failures = new LongAdder();
+
+    private PriceParser() {
+    }
+
+    /**
+     * Returns the parsed price, or {@link BigDecimal#ZERO} if the text is missing or not
+     * a valid price. Failures are counted, see {@link #getFailureCount()}.
+     */
+    public static BigDecimal parse(CharSequence text) {
+        BigDecimal price = parseOrNull(text);
+        if (price == null) {
+            failures.increment();
+            log.debug("Could not parse price '{}'", text);
+            return BigDecimal.ZERO;
+        }
+        return price;
+    }
+
+    /**
+     * Number of prices that could not be parsed since startup.
+     */
+    public static long getFailureCount() {
+        return failures.sum();
+    }
+
+    static BigDecimal parseOrNull(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        boolean negative = false;
+        int groupLength = 0;      // Ziffern seit dem letzten Trennzeichen
+        int firstGroupLength = 0; // Ziffern vor dem ersten Trennzeichen
+        char pending = 0;         // letztes Trennzeichen, Rolle noch offen
+        char grouping = 0;        // bestaetigtes Tausendertrennzeichen
+        boolean decimalSeen = false;
+
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits == MAX_DIGITS) {
+                    return null;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                groupLength++;
+                continue;
+            }
+            if (digits == 0) {
+                if (c == '-') {
+                    negative = true;
+                }
+                continue;
+            }
+
+            boolean separator = c == '.' || c == ',';
+            if (!separator && !(isGroupingOnly(c) && i + 1 < length && isDigit(text.charAt(i + 1)))) {
+                break;
+            }
+            if (groupLength == 0 || decimalSeen) {
+                return null;
+            }
+            if (pending == 0) {
+                firstGroupLength = groupLength;
+            } else {
+                // Das vorige Trennzeichen war ein Tausendertrennzeichen
+                if (groupLength != 3 || (grouping != 0 && grouping != pending) || firstGroupLength > 3) {
+                    return null;
+                }
+                grouping = pending;
+                decimalSeen = c != grouping && !isGroupingOnly(c);
+            }
+            pending = c;
+            groupLength = 0;
+        }
+
+        if (digits == 0) {
+            return null;
+        }
+
+        int scale = 0;
+        if (pending != 0) {
+            // Ein einzelnes '.' oder ',' ist immer das Dezimaltrennzeichen, auch vor drei Ziffern
+            boolean thousands = isGroupingOnly(pending) || pending == grouping;
+            if (thousands) {
+                if (groupLength != 3 || firstGroupLength > 3) {
+                    return null;
+                }
+            } else {
+                scale = groupLength;
+            }
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private static boolean isGroupingOnly(char c) {
+        return c == ' ' || c == '\u00A0' || c == '\u202F' || c == '\'';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,243 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperationResult;
+import com.ribaso.basketservice.core.domain.model.BasketSummary;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.model.ItemSummary;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retries basket mutations that lost a race against a concurrent edit: an optimistic lock
+ * conflict on a versioned row, a lock or deadlock timeout, or two requests inserting the
+ * same new item. Each attempt runs in its own transaction of the wrapped service. Between
+ * attempts the thread sleeps for an exponential backoff with full jitter. Reads are
+ * delegated unchanged.
+ */
+public class RetryingBasketService implements BasketService {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryingBasketService.class);
+
+    // SQLSTATE fuer die Verletzung eines eindeutigen Schluessels
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final BasketService delegate;
+
+    private final int maxAttempts;
+
+    private final long initialBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final LongAdder conflicts = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder exhausted = new LongAdder();
+
+    public RetryingBasketService(BasketService delegate, int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.delegate = delegate;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    @Override
+    public Basket createBasket(String userId) {
+        return withRetry("createBasket", () -> delegate.createBasket(userId));
+    }
+
+    @Override
+    public Basket getBasket(String basketID) {
+        return delegate.getBasket(basketID);
+    }
+
+    @Override
+    public long getBasketVersion(String basketID) {
+        return delegate.getBasketVersion(basketID);
+    }
+
+    @Override
+    public Long getBasketVersion(Basket basket) {
+        return delegate.getBasketVersion(basket);
+    }
+
+    @Override
+    public BasketSummary getBasketSummary(String basketID) {
+        return delegate.getBasketSummary(basketID);
+    }
+
+    @Override
+    public boolean removeBasket(String basketID) {
+        return withRetry("removeBasket", () -> delegate.removeBasket(basketID));
+    }
+
+    @Override
+    public BigDecimal getTotalCosts(String basketID) {
+        return delegate.getTotalCosts(basketID);
+    }
+
+    @Override
+    public Map<String, BigDecimal> getTotalCosts(Collection<String> basketIDs) {
+        return delegate.getTotalCosts(basketIDs);
+    }
+
+    @Override
+    public String getBasketID(String userID) {
+        return delegate.getBasketID(userID);
+    }
+
+    @Override
+    public Item getItem(String basketID, String itemID) {
+        return delegate.getItem(basketID, itemID);
+    }
+
+    @Override
+    public Page<ItemSummary> getItems(String basketID, Pageable pageable) {
+        return delegate.getItems(basketID, pageable);
+    }
+
+    @Override
+    public boolean addItem(String basketID, String itemID, int amount) throws IOException {
+        return withRetry("addItem", () -> delegate.addItem(basketID, itemID, amount));
+    }
+
+    /**
+     * The asynchronous path completes on another thread, possibly a basket lane. A conflict
+     * there is retried asynchronously after the backoff, without blocking that thread.
+     */
+    @Override
+    public CompletableFuture<Boolean> addItemAsync(String basketID, String itemID, int amount) {
+        return addItemAsync(basketID, itemID, amount, 1);
+    }
+
+    private CompletableFuture<Boolean> addItemAsync(String basketID, String itemID, int amount, int attempt) {
+        return delegate.addItemAsync(basketID, itemID, amount)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (!isConflict(cause)) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    conflicts.increment();
+                    if (attempt >= maxAttempts) {
+                        exhausted.increment();
+                        log.warn("addItemAsync still conflicting after {} attempts", attempt);
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    retries.increment();
+                    Executor delayed = CompletableFuture.delayedExecutor(backoffMillis(attempt), TimeUnit.MILLISECONDS);
+                    return CompletableFuture.supplyAsync(() -> attempt + 1, delayed)
+                            .thenCompose(next -> addItemAsync(basketID, itemID, amount, next));
+                });
+    }
+
+    @Override
+    public boolean removeItem(String basketID, String itemID, int amount) {
+        return withRetry("removeItem", () -> delegate.removeItem(basketID, itemID, amount));
+    }
+
+    @Override
+    public List<BasketItemOperationResult> applyItemOperations(String basketID, List<BasketItemOperation> operations) {
+        return withRetry("applyItemOperations", () -> delegate.applyItemOperations(basketID, operations));
+    }
+
+    /**
+     * Mutations that ran into a conflict, counting every failed attempt.
+     */
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Mutations that still conflicted after the last attempt and were passed to the caller.
+     */
+    public long getExhaustedCount() {
+        return exhausted.sum();
+    }
+
+    private <T, E extends Exception> T withRetry(String operation, Mutation<T, E> mutation) throws E {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return mutation.run();
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("{} still conflicting after {} attempts", operation, attempt);
+                    throw e;
+                }
+                retries.increment();
+                log.debug("{} conflicted on attempt {}, retrying: {}", operation, attempt, e.getMessage());
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    private void backoff(int attempt, RuntimeException conflict) {
+        long millis = backoffMillis(attempt);
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    // Exponentiell mit vollem Jitter
+    private long backoffMillis(int attempt) {
+        long bound = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return bound > 0 ? ThreadLocalRandom.current().nextLong(bound + 1) : 0;
+    }
+
+    private static boolean isConflict(Throwable e) {
+        if (e instanceof ConcurrencyFailureException || e instanceof DuplicateKeyException) {
+            return true;
+        }
+        // Hibernate meldet doppelte Schluessel nur als DataIntegrityViolationException
+        return e instanceof DataIntegrityViolationException
+                && NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLException sqlException
+                && UNIQUE_VIOLATION.equals(sqlException.getSQLState());
+    }
+
+    @FunctionalInterface
+    private interface Mutation<T, E extends Exception> {
+        T run() throws E;
+    }
+}
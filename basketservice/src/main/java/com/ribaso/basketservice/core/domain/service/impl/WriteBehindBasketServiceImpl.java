@@ -0,0 +1,342 @@
+package com.ribaso.basketservice.core.domain.service.impl;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperationResult;
+import com.ribaso.basketservice.core.domain.model.BasketSummary;
+import com.ribaso.basketservice.core.domain.model.BasketTotal;
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.model.ItemSummary;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import com.ribaso.basketservice.port.exception.InvalidAmountException;
+import com.ribaso.basketservice.port.exception.UnknownBasketIDException;
+import com.ribaso.basketservice.port.exception.UnknownItemIDException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * {@link BasketService} for the write-behind storage mode. All reads and writes go to the
+ * {@link InMemoryBasketStore}, which persists changed baskets asynchronously.
+ */
+@Service
+@Qualifier("basketStorage")
+@ConditionalOnProperty(name = "basket.storage.mode", havingValue = "write-behind")
+public class WriteBehindBasketServiceImpl implements BasketService {
+
+    private static final int TOTALS_QUERY_CHUNK_SIZE = 500;
+
+    @Autowired
+    private InMemoryBasketStore basketStore;
+
+    @Autowired
+    private GetBookDetails getBookDetails;
+
+    @Autowired
+    private BasketRepository basketRepository;
+
+    @Override
+    public Basket createBasket(String userId) {
+        Basket basket = new Basket();
+        basket.setId(userId);
+        basket.setUserId(userId);
+        return basketStore.create(basket);
+    }
+
+    @Override
+    public Basket getBasket(String basketID) {
+        return read(basketID, Basket::copy);
+    }
+
+    /**
+     * The persisted version only moves when a basket is flushed, so the version reported here
+     * is a fingerprint of the in-memory content instead.
+     */
+    @Override
+    public long getBasketVersion(String basketID) {
+        return read(basketID, WriteBehindBasketServiceImpl::contentVersion);
+    }
+
+    @Override
+    public Long getBasketVersion(Basket basket) {
+        return contentVersion(basket);
+    }
+
+    @Override
+    public BasketSummary getBasketSummary(String basketID) {
+        return read(basketID, basket ->
+                new BasketSummary(basket.getId(), basket.getItemCount(), basket.getTotalCosts(), contentVersion(basket)));
+    }
+
+    @Override
+    public boolean removeBasket(String basketID) {
+        return basketStore.remove(basketID);
+    }
+
+    @Override
+    public BigDecimal getTotalCosts(String basketID) {
+        return read(basketID, Basket::getTotalCosts);
+    }
+
+    /**
+     * Resident baskets are answered from memory. The others are summed up from their items in
+     * the database, without loading them into the store.
+     */
+    @Override
+    public Map<String, BigDecimal> getTotalCosts(Collection<String> basketIDs) {
+        Map<String, BigDecimal> totals = new LinkedHashMap<>();
+        List<String> notResident = new ArrayList<>();
+        for (String basketID : new LinkedHashSet<>(basketIDs)) {
+            Optional<BigDecimal> total = basketStore.readIfResident(basketID, Basket::getTotalCosts);
+            if (total.isPresent()) {
+                totals.put(basketID, total.get());
+            } else if (!basketStore.isRemoved(basketID)) {
+                notResident.add(basketID);
+            }
+        }
+        // In Bloecken abfragen, damit die IN-Liste begrenzt bleibt
+        for (int from = 0; from < notResident.size(); from += TOTALS_QUERY_CHUNK_SIZE) {
+            List<String> chunk = notResident.subList(from, Math.min(from + TOTALS_QUERY_CHUNK_SIZE, notResident.size()));
+            for (BasketTotal total : basketRepository.computeTotalCostsByIdIn(chunk)) {
+                totals.put(total.getBasketId(), total.getTotalCosts());
+            }
+        }
+        return totals;
+    }
+
+    @Override
+    public String getBasketID(String userID) {
+        return basketStore.findIdByUserId(userID)
+                .orElseThrow(() -> new UnknownBasketIDException("Basket not found"));
+    }
+
+    @Override
+    public Item getItem(String basketID, String itemID) {
+        Item item = getBasket(basketID).findItem(itemID);
+        if (item == null) {
+            throw new UnknownItemIDException("Item not found");
+        }
+        return item;
+    }
+
+    /**
+     * Pages the in-memory items ordered by item ID; the sort of the pageable is not applied.
+     */
+    @Override
+    public Page<ItemSummary> getItems(String basketID, Pageable pageable) {
+        List<ItemSummary> items = read(basketID, basket -> {
+            List<ItemSummary> summaries = new ArrayList<>();
+            for (Item item : basket.getItems()) {
+                summaries.add(new ItemSummary(item.getId(), item.getName(), item.getAmount(), item.getPrice()));
+            }
+            return summaries;
+        });
+        items.sort(Comparator.comparing(ItemSummary::getId));
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(items);
+        }
+        int from = (int) Math.min(pageable.getOffset(), items.size());
+        int to = Math.min(from + pageable.getPageSize(), items.size());
+        return new PageImpl<>(items.subList(from, to), pageable, items.size());
+    }
+
+    @Override
+    public boolean addItem(String basketID, String itemID, int amount) {
+        if (amount <= 0) {
+            throw new InvalidAmountException("Amount must be greater than zero");
+        }
+
+        if (read(basketID, basket -> basket.findItem(itemID) != null)
+                && update(basketID, basket -> increaseAmount(basket, itemID, amount))) {
+            return true;
+        }
+
+        // Buchdetails ausserhalb des Warenkorbs holen, der Aufruf kann den BookService erreichen
+        Book book = getBookDetails.getBookDetails(itemID);
+        if (book == null) {
+            throw new UnknownItemIDException("Book not found");
+        }
+
+        return update(basketID, basket -> {
+            if (!increaseAmount(basket, itemID, amount)) {
+                basket.addItem(newItem(itemID, amount, book));
+                basket.recalculateTotals();
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> addItemAsync(String basketID, String itemID, int amount) {
+        if (amount <= 0) {
+            throw new InvalidAmountException("Amount must be greater than zero");
+        }
+        return getBookDetails.getBookDetailsAsync(itemID)
+                .thenApply(book -> addItem(basketID, itemID, amount));
+    }
+
+    @Override
+    public boolean removeItem(String basketID, String itemID, int amount) {
+        if (amount <= 0) {
+            throw new InvalidAmountException("Amount must be greater than zero");
+        }
+
+        return update(basketID, basket -> {
+            Item item = basket.findItem(itemID);
+            if (item == null) {
+                throw new UnknownItemIDException("Item not found");
+            }
+            if (item.getAmount() < amount) {
+                throw new InvalidAmountException("Not enough items to remove");
+            }
+
+            item.setAmount(item.getAmount() - amount);
+            if (item.getAmount() == 0) {
+                basket.removeItem(item);
+            }
+            basket.recalculateTotals();
+            return true;
+        });
+    }
+
+    @Override
+    public List<BasketItemOperationResult> applyItemOperations(String basketID, List<BasketItemOperation> operations) {
+        Set<String> existingItemIDs = read(basketID, basket -> {
+            Set<String> itemIDs = new HashSet<>();
+            basket.getItems().forEach(item -> itemIDs.add(item.getId()));
+            return itemIDs;
+        });
+
+        // Alle fehlenden Buchdetails in einem Aufruf holen, ausserhalb des Warenkorbs
+        Set<String> newItemIDs = BasketItemOperation.itemsNeedingBookDetails(operations, existingItemIDs);
+        Map<String, Book> books = newItemIDs.isEmpty() ? Map.of() : getBookDetails.getBookDetails(newItemIDs);
+
+        return update(basketID, basket -> {
+            List<BasketItemOperationResult> results = new ArrayList<>(operations.size());
+            for (BasketItemOperation operation : operations) {
+                results.add(applyItemOperation(basket, operation, books));
+            }
+            basket.recalculateTotals();
+            return results;
+        });
+    }
+
+    private BasketItemOperationResult applyItemOperation(Basket basket, BasketItemOperation operation,
+            Map<String, Book> books) {
+        String itemID = operation.getItemID();
+        if (operation.getType() == null || itemID == null) {
+            return BasketItemOperationResult.failed(itemID, "Operation type and item ID are required");
+        }
+        int amount = operation.getAmount();
+        Item item = basket.findItem(itemID);
+        switch (operation.getType()) {
+            case ADD -> {
+                if (amount <= 0) {
+                    return BasketItemOperationResult.failed(itemID, "Amount must be greater than zero");
+                }
+                if (item != null) {
+                    item.setAmount(item.getAmount() + amount);
+                    return BasketItemOperationResult.ok(itemID);
+                }
+            }
+            case REMOVE -> {
+                if (amount <= 0) {
+                    return BasketItemOperationResult.failed(itemID, "Amount must be greater than zero");
+                }
+                if (item == null) {
+                    return BasketItemOperationResult.failed(itemID, "Item not found");
+                }
+                if (item.getAmount() < amount) {
+                    return BasketItemOperationResult.failed(itemID, "Not enough items to remove");
+                }
+                item.setAmount(item.getAmount() - amount);
+                if (item.getAmount() == 0) {
+                    basket.removeItem(item);
+                }
+                return BasketItemOperationResult.ok(itemID);
+            }
+            case SET -> {
+                if (amount < 0) {
+                    return BasketItemOperationResult.failed(itemID, "Amount must not be negative");
+                }
+                if (item != null) {
+                    item.setAmount(amount);
+                    if (amount == 0) {
+                        basket.removeItem(item);
+                    }
+                    return BasketItemOperationResult.ok(itemID);
+                }
+                if (amount == 0) {
+                    return BasketItemOperationResult.failed(itemID, "Item not found");
+                }
+            }
+        }
+
+        Book book = books.get(itemID);
+        if (book == null) {
+            return BasketItemOperationResult.failed(itemID, "Book not found");
+        }
+        basket.addItem(newItem(itemID, amount, book));
+        return BasketItemOperationResult.ok(itemID);
+    }
+
+    private static Item newItem(String itemID, int amount, Book book) {
+        Item newItem = new Item();
+        newItem.setId(itemID);
+        newItem.setAmount(amount);
+        newItem.setName(book.getTitle());
+        newItem.setPrice(BasketServiceImpl.cleanAndConvertToBigDecimal(book.getPrice()));
+        return newItem;
+    }
+
+    private static long contentVersion(Basket basket) {
+        long hash = 1125899906842597L;
+        for (Item item : basket.getItems()) {
+            hash = 31 * hash + item.getId().hashCode();
+            hash = 31 * hash + item.getAmount();
+            hash = 31 * hash + item.getPrice().hashCode();
+        }
+        return hash;
+    }
+
+    private <R> R read(String basketID, Function<Basket, R> reader) {
+        return basketStore.read(basketID, reader).orElseThrow(() -> new UnknownBasketIDException("Basket not found"));
+    }
+
+    private <R> R update(String basketID, Function<Basket, R> mutation) {
+        return basketStore.update(basketID, mutation).orElseThrow(() -> new UnknownBasketIDException("Basket not found"));
+    }
+
+    private static boolean increaseAmount(Basket basket, String itemID, int amount) {
+        Item item = basket.findItem(itemID);
+        if (item == null) {
+            return false;
+        }
+        item.setAmount(item.getAmount() + amount);
+        basket.recalculateTotals();
+        return true;
+    }
+
+}
@@ -1,9 +1,124 @@
 package com.ribaso.basketservice.core.domain.service.interfaces;
 
 import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketSummary;
+import com.ribaso.basketservice.core.domain.model.BasketTotal;
+import com.ribaso.basketservice.core.domain.model.BasketTotalsDrift;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface BasketRepository extends JpaRepository<Basket, String> {
     Optional<Basket> findByUserId(String userId);
+
+    /**
+     * Lädt den Warenkorb samt Artikeln in einer einzigen Abfrage.
+     */
+    @EntityGraph(attributePaths = "items")
+    Optional<Basket> findWithItemsById(String id);
+
+    /**
+     * Liest nur die gespeicherten Summen des Warenkorbs, ohne Entität und ohne Artikel.
+     */
+    @Query("select new com.ribaso.basketservice.core.domain.model.BasketSummary(b.id, b.itemCount, b.totalCosts, b.version) "
+            + "from Basket b where b.id = :basketId")
+    Optional<BasketSummary> findSummaryById(@Param("basketId") String basketId);
+
+    @Query("select b.version from Basket b where b.id = :basketId")
+    Optional<Long> findVersionById(@Param("basketId") String basketId);
+
+    @Query("select b.totalCosts from Basket b where b.id = :basketId")
+    Optional<BigDecimal> findTotalCostsById(@Param("basketId") String basketId);
+
+    /**
+     * Liest die gespeicherten Gesamtkosten mehrerer Warenkörbe. Unbekannte IDs fehlen im Ergebnis.
+     */
+    @Query("select b.id as basketId, b.totalCosts as totalCosts from Basket b where b.id in :basketIds")
+    List<BasketTotal> findTotalCostsByIdIn(@Param("basketIds") Collection<String> basketIds);
+
+    /**
+     * Berechnet die Gesamtkosten mehrerer Warenkörbe aus ihren Artikeln, ohne die gespeicherten
+     * Summen zu verwenden. Unbekannte IDs fehlen im Ergebnis.
+     */
+    @Query("select b.id as basketId, coalesce(sum(i.price * i.amount), 0) as totalCosts "
+            + "from Basket b left join b.items i where b.id in :basketIds group by b.id")
+    List<BasketTotal> computeTotalCostsByIdIn(@Param("basketIds") Collection<String> basketIds);
+
+    /**
+     * Ändert die Summen um {@code amount} Stück des Artikels, zum Preis des Artikels im Warenkorb.
+     * Negative Mengen verringern die Summen. Wie alle Summen-Updates erhöht es die Version.
+     */
+    @Modifying
+    @Query("update Basket b set "
+            + "b.version = b.version + 1, "
+            + "b.itemCount = b.itemCount + :amount, "
+            + "b.totalCosts = b.totalCosts + :amount * coalesce((select i.price from Item i where i.id = :itemId and i.basket.id = :basketId), 0) "
+            + "where b.id = :basketId")
+    int addItemToTotals(@Param("basketId") String basketId, @Param("itemId") String itemId, @Param("amount") int amount);
+
+    @Modifying
+    @Query("update Basket b set b.version = b.version + 1, "
+            + "b.totalCosts = b.totalCosts + :costs, b.itemCount = b.itemCount + :amount where b.id = :basketId")
+    int addToTotals(@Param("basketId") String basketId, @Param("costs") BigDecimal costs, @Param("amount") int amount);
+
+    /**
+     * Sperrt die Warenkorb-Zeile bis zum Ende der Transaktion.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b.id from Basket b where b.id = :basketId")
+    Optional<String> lockById(@Param("basketId") String basketId);
+
+    /**
+     * Berechnet die Summen aus den Artikeln neu. Vorher mit {@link #lockById} sperren: sonst liest die
+     * Anweisung die Artikel vor dem Warten auf die Zeile und ueberschreibt gleichzeitig gebuchte Aenderungen.
+     */
+    @Modifying
+    @Query("update Basket b set b.version = b.version + 1, "
+            + "b.totalCosts = (select coalesce(sum(i.price * i.amount), 0) from Item i where i.basket.id = b.id), "
+            + "b.itemCount = (select cast(coalesce(sum(i.amount), 0) as Integer) from Item i where i.basket.id = b.id) "
+            + "where b.id = :basketId")
+    int recomputeTotals(@Param("basketId") String basketId);
+
+    /**
+     * Sperrt alle Warenkörbe, die eines der Bücher enthalten, in Reihenfolge der ID und liefert deren IDs.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b.id from Basket b where b.id in (select i.basket.id from Item i where i.id in :bookIds) order by b.id")
+    List<String> lockByBookIds(@Param("bookIds") Collection<String> bookIds);
+
+    /**
+     * Wie {@link #recomputeTotals}, für alle Warenkörbe, die eines der Bücher enthalten; vorher mit
+     * {@link #lockByBookIds} sperren.
+     */
+    @Modifying
+    @Query("update Basket b set b.version = b.version + 1, "
+            + "b.totalCosts = (select coalesce(sum(i.price * i.amount), 0) from Item i where i.basket.id = b.id), "
+            + "b.itemCount = (select cast(coalesce(sum(i.amount), 0) as Integer) from Item i where i.basket.id = b.id) "
+            + "where b.id in (select i.basket.id from Item i where i.id in :bookIds)")
+    int recomputeTotalsByBookIds(@Param("bookIds") Collection<String> bookIds);
+
+    @Query("select b.id from Basket b where b.id > :after order by b.id")
+    List<String> findIdsAfter(@Param("after") String after, Limit limit);
+
+    /**
+     * Vergleicht gespeicherte und berechnete Summen in einer Abfrage und liefert nur Abweichungen.
+     */
+    @Query("select b.id as basketId, b.totalCosts as storedTotalCosts, b.itemCount as storedItemCount, "
+            + "coalesce(sum(i.price * i.amount), 0) as totalCosts, coalesce(sum(i.amount), 0) as itemCount "
+            + "from Basket b left join b.items i where b.id in :basketIds "
+            + "group by b.id, b.totalCosts, b.itemCount "
+            + "having b.totalCosts <> coalesce(sum(i.price * i.amount), 0) or b.itemCount <> coalesce(sum(i.amount), 0)")
+    List<BasketTotalsDrift> findTotalsDrift(@Param("basketIds") Collection<String> basketIds);
 }
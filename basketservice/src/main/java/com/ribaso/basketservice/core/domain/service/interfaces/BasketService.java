@@ -1,13 +1,24 @@
 package com.ribaso.basketservice.core.domain.service.interfaces;
 
 import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperationResult;
+import com.ribaso.basketservice.core.domain.model.BasketSummary;
 import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.model.ItemSummary;
 import com.ribaso.basketservice.port.exception.InvalidAmountException;
 import com.ribaso.basketservice.port.exception.UnknownBasketIDException;
 import com.ribaso.basketservice.port.exception.UnknownItemIDException;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface BasketService {
 
@@ -22,6 +33,34 @@ public interface BasketService {
      */
     Basket getBasket(String basketID);
 
+    /**
+     * Liefert die Version eines Warenkorbs, ohne ihn oder seine Artikel zu laden. Sie ändert
+     * sich mit jeder Änderung am Warenkorb und dient als Grundlage für ETags.
+     * 
+     * @param basketID Die eindeutige ID des Warenkorbs.
+     * @return Die aktuelle Version.
+     * @throws UnknownBasketIDException Wenn der Warenkorb nicht gefunden wird.
+     */
+    long getBasketVersion(String basketID);
+
+    /**
+     * Liefert die Version eines mit {@link #getBasket} gelesenen Warenkorbs, im selben Sinn wie
+     * {@link #getBasketVersion(String)}. So passt ein ETag zum ausgelieferten Inhalt.
+     * 
+     * @param basket Der gelesene Warenkorb.
+     * @return Die Version dieses Stands oder {@code null}, wenn er noch keine Version trägt.
+     */
+    Long getBasketVersion(Basket basket);
+
+    /**
+     * Liefert Artikelanzahl und Gesamtkosten eines Warenkorbs, ohne die Artikel zu laden.
+     * 
+     * @param basketID Die eindeutige ID des Warenkorbs.
+     * @return Die Kopfdaten des Warenkorbs.
+     * @throws UnknownBasketIDException Wenn der Warenkorb nicht gefunden wird.
+     */
+    BasketSummary getBasketSummary(String basketID);
+
      /**
      * Entfernt einen Warenkorb anhand seiner ID.
      * 
@@ -39,6 +78,14 @@ public interface BasketService {
      */
     BigDecimal getTotalCosts(String basketID);
 
+    /**
+     * Berechnet die Gesamtkosten mehrerer Warenkörbe in einem Aufruf.
+     * 
+     * @param basketIDs Die IDs der Warenkörbe.
+     * @return Die Gesamtkosten je Warenkorb-ID. Unbekannte Warenkörbe fehlen in der Map.
+     */
+    Map<String, BigDecimal> getTotalCosts(Collection<String> basketIDs);
+
     /**
      * Ruft die ID eines Warenkorbs anhand der Benutzer-ID ab.
      * 
@@ -58,6 +105,16 @@ public interface BasketService {
      */
     Item getItem(String basketID, String itemID);
 
+    /**
+     * Liest die Artikel eines Warenkorbs seitenweise.
+     * 
+     * @param basketID Die eindeutige ID des Warenkorbs.
+     * @param pageable Seite, Seitengröße und Sortierung.
+     * @return Die angeforderte Seite der Artikel.
+     * @throws UnknownBasketIDException Wenn der Warenkorb nicht gefunden wird.
+     */
+    Page<ItemSummary> getItems(String basketID, Pageable pageable);
+
     /**
      * Fügt einen Artikel zu einem Warenkorb hinzu.
      * 
@@ -71,6 +128,18 @@ public interface BasketService {
      */
     boolean addItem(String basketID, String itemID, int amount) throws IOException;
 
+    /**
+     * Fügt einen Artikel zu einem Warenkorb hinzu, ohne während der Abfrage der
+     * Buchdetails einen Thread zu blockieren.
+     * 
+     * @param basketID Die eindeutige ID des Warenkorbs.
+     * @param itemID Die eindeutige ID des Artikels.
+     * @param amount Die Menge des Artikels, die hinzugefügt werden soll.
+     * @return Ein Future, das mit true abgeschlossen wird, wenn der Artikel hinzugefügt wurde.
+     * @throws InvalidAmountException Wenn die Menge ungültig ist.
+     */
+    CompletableFuture<Boolean> addItemAsync(String basketID, String itemID, int amount);
+
     /**
      * Entfernt eine bestimmte Menge eines Artikels aus einem Warenkorb.
      * 
@@ -83,4 +152,16 @@ public interface BasketService {
      * @throws UnknownItemIDException Wenn der Artikel nicht gefunden wird.
      */
     boolean removeItem(String basketID, String itemID, int amount);
+
+    /**
+     * Führt mehrere Artikeländerungen (hinzufügen, entfernen, Menge setzen) in einer
+     * Transaktion aus. Die Buchdetails aller neuen Artikel werden gesammelt abgefragt.
+     * Eine ungültige Zeile bricht die übrigen nicht ab, sondern wird im Ergebnis gemeldet.
+     * 
+     * @param basketID Die eindeutige ID des Warenkorbs.
+     * @param operations Die Änderungen in der gewünschten Reihenfolge.
+     * @return Ein Ergebnis je Änderung, in derselben Reihenfolge.
+     * @throws UnknownBasketIDException Wenn der Warenkorb nicht gefunden wird.
+     */
+    List<BasketItemOperationResult> applyItemOperations(String basketID, List<BasketItemOperation> operations);
 }
@@ -1,7 +1,84 @@
 package com.ribaso.basketservice.core.domain.service.interfaces;
 
 import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.model.ItemKey;
+import com.ribaso.basketservice.core.domain.model.ItemSummary;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ItemRepository extends JpaRepository<Item, ItemKey>, ItemRepositoryCustom {
+
+    boolean existsByIdAndBasketId(String id, String basketId);
+
+    /**
+     * Liest einen Artikel über den Primärschlüssel (basket_id, book_id).
+     */
+    @Query("select i from Item i where i.basket.id = :basketId and i.id = :bookId")
+    Optional<Item> findByBasketIdAndBookId(@Param("basketId") String basketId, @Param("bookId") String bookId);
+
+    @Query("select i.version from Item i where i.basket.id = :basketId and i.id = :bookId")
+    Optional<Long> findVersionByBasketIdAndBookId(@Param("basketId") String basketId, @Param("bookId") String bookId);
+
+    @Query("select i.id from Item i where i.basket.id = :basketId")
+    List<String> findIdsByBasketId(@Param("basketId") String basketId);
+
+    /**
+     * Liest eine Seite der Artikel eines Warenkorbs als Projektion, ohne Entitäten zu laden.
+     */
+    @Query(value = "select new com.ribaso.basketservice.core.domain.model.ItemSummary(i.id, i.name, i.amount, i.price) "
+            + "from Item i where i.basket.id = :basketId",
+            countQuery = "select count(i) from Item i where i.basket.id = :basketId")
+    Page<ItemSummary> findSummariesByBasketId(@Param("basketId") String basketId, Pageable pageable);
+
+    /**
+     * Erhöht die Menge atomar in einem einzigen UPDATE.
+     * 
+     * @return Anzahl der geänderten Zeilen, 0 wenn der Artikel nicht im Warenkorb liegt.
+     */
+    @Modifying
+    @Query("update Item i set i.amount = i.amount + :amount, i.version = i.version + 1 "
+            + "where i.id = :itemId and i.basket.id = :basketId")
+    int incrementAmount(@Param("basketId") String basketId, @Param("itemId") String itemId, @Param("amount") int amount);
+
+    /**
+     * Verringert die Menge atomar, sofern genügend Artikel vorhanden sind.
+     * 
+     * @return Anzahl der geänderten Zeilen, 0 wenn der Artikel fehlt oder die Menge nicht reicht.
+     */
+    @Modifying
+    @Query("update Item i set i.amount = i.amount - :amount, i.version = i.version + 1 "
+            + "where i.id = :itemId and i.basket.id = :basketId and i.amount >= :amount")
+    int decrementAmount(@Param("basketId") String basketId, @Param("itemId") String itemId, @Param("amount") int amount);
+
+    /**
+     * Liest die Menge eines Artikels und sperrt ihn bis zum Ende der Transaktion.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i.amount from Item i where i.id = :itemId and i.basket.id = :basketId")
+    Optional<Integer> findAmountForUpdate(@Param("basketId") String basketId, @Param("itemId") String itemId);
+
+    /**
+     * Setzt die Menge eines vorhandenen Artikels.
+     * 
+     * @return Anzahl der geänderten Zeilen, 0 wenn der Artikel nicht im Warenkorb liegt.
+     */
+    @Modifying
+    @Query("update Item i set i.amount = :amount, i.version = i.version + 1 "
+            + "where i.id = :itemId and i.basket.id = :basketId")
+    int setAmount(@Param("basketId") String basketId, @Param("itemId") String itemId, @Param("amount") int amount);
 
-public interface ItemRepository extends JpaRepository<Item, String> {
+    @Modifying
+    @Query("delete from Item i where i.id = :itemId and i.basket.id = :basketId and i.amount <= 0")
+    int deleteIfEmpty(@Param("basketId") String basketId, @Param("itemId") String itemId);
 }
@@ -0,0 +1,21 @@
+package com.ribaso.basketservice.core.domain.service.interfaces;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Abfragen des {@link ItemRepository}, die sich nicht als feste JPQL-Anweisung schreiben lassen.
+ */
+public interface ItemRepositoryCustom {
+
+    /**
+     * Übernimmt Titel und Preise geänderter Bücher in alle Artikel dieser Bücher, für beliebig
+     * viele Bücher in einem einzigen UPDATE. Fehlt ein Buch in einer der Maps, bleibt der
+     * jeweilige Wert unverändert; Artikel, bei denen sich nichts ändert, werden nicht geschrieben.
+     * 
+     * @param titles neue Titel nach Buch-ID
+     * @param prices neue Preise nach Buch-ID
+     * @return Anzahl der geänderten Artikel
+     */
+    int updateBookDetails(Map<String, String> titles, Map<String, BigDecimal> prices);
+}
@@ -0,0 +1,66 @@
+package com.ribaso.basketservice.core.domain.service.interfaces;
+
+import com.ribaso.basketservice.core.domain.model.Item;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    // Auch ausserhalb von Spring nutzbar, etwa mit einem geteilten EntityManager in den Benchmarks
+    public ItemRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int updateBookDetails(Map<String, String> titles, Map<String, BigDecimal> prices) {
+        Set<String> bookIds = new HashSet<>(titles.keySet());
+        bookIds.addAll(prices.keySet());
+        if (bookIds.isEmpty()) {
+            return 0;
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Item> update = cb.createCriteriaUpdate(Item.class);
+        Root<Item> item = update.from(Item.class);
+        Path<String> bookId = item.get("id");
+        Path<String> name = item.get("name");
+        Path<BigDecimal> price = item.get("price");
+
+        // set name = case book_id when ? then ? ... else name end, ebenso fuer den Preis; nur Zeilen mit Aenderung
+        List<Predicate> changed = new ArrayList<>(2);
+        if (!titles.isEmpty()) {
+            Expression<String> newName = caseByBook(cb, bookId, titles, name);
+            update.set(name, newName);
+            changed.add(cb.notEqual(name, newName));
+        }
+        if (!prices.isEmpty()) {
+            Expression<BigDecimal> newPrice = caseByBook(cb, bookId, prices, price);
+            update.set(price, newPrice);
+            changed.add(cb.notEqual(price, newPrice));
+        }
+        update.set(item.<Long>get("version"), cb.sum(item.get("version"), 1L));
+        update.where(bookId.in(bookIds), cb.or(changed.toArray(Predicate[]::new)));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private static <T> Expression<T> caseByBook(CriteriaBuilder cb, Path<String> bookId, Map<String, T> values,
+            Expression<T> current) {
+        CriteriaBuilder.SimpleCase<String, T> byBook = cb.selectCase(bookId);
+        values.forEach(byBook::when);
+        return byBook.otherwise(current);
+    }
+}
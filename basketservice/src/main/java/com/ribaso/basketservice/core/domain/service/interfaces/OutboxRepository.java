@@ -0,0 +1,26 @@
+package com.ribaso.basketservice.core.domain.service.interfaces;
+
+import com.ribaso.basketservice.core.domain.model.OutboxEntry;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxEntry, Long> {
+
+    /**
+     * Liest die ältesten Einträge und sperrt sie bis zum Ende der Transaktion. Von einer
+     * anderen Instanz gesperrte Einträge werden übersprungen (Lock-Timeout -2: SKIP LOCKED).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select o from OutboxEntry o order by o.id")
+    List<OutboxEntry> findOldestForPublishing(Limit limit);
+}
@@ -0,0 +1,55 @@
+package com.ribaso.basketservice.core.domain.service.interfaces;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Die Warenkörbe, die der Write-Behind-Modus im Speicher hält, im Layout der Implementierung.
+ * Leser und Änderungen sehen einen {@link Basket} und laufen je Warenkorb atomar; der
+ * übergebene Warenkorb darf den Aufruf nicht verlassen.
+ */
+public interface ResidentBasketStore {
+
+    /**
+     * @return Ergebnis des Readers oder null, wenn der Warenkorb nicht im Speicher liegt.
+     */
+    <R> R read(String basketId, Function<Basket, R> reader);
+
+    /**
+     * Wendet die Änderung an und übernimmt den geänderten Warenkorb. Wirft die Änderung eine
+     * Exception, bleibt der Warenkorb unverändert, soweit sie ihn vorher nicht verändert hat.
+     *
+     * @return Ergebnis der Änderung oder null, wenn der Warenkorb nicht (mehr) im Speicher liegt;
+     *         die Änderung wurde dann auf keinen gespeicherten Warenkorb angewendet.
+     */
+    <R> R update(String basketId, Function<Basket, R> mutation);
+
+    /**
+     * Legt den Warenkorb ab oder ersetzt ihn; das übergebene Objekt gehört danach dem Store.
+     */
+    void put(Basket basket);
+
+    /**
+     * @return true, wenn der Warenkorb abgelegt wurde, false, wenn schon einer mit der ID vorlag.
+     */
+    boolean putIfAbsent(Basket basket);
+
+    /**
+     * @return User-ID des entfernten Warenkorbs, oder null, wenn keiner vorlag oder er keine User-ID hat.
+     */
+    String remove(String basketId);
+
+    /**
+     * Entfernt den Warenkorb nur, wenn die Bedingung gilt. Die Bedingung wird unter derselben
+     * Sperre geprüft wie {@link #update}, eine laufende Änderung ist also vorher abgeschlossen.
+     *
+     * @return true, wenn der Warenkorb entfernt wurde.
+     */
+    boolean removeIf(String basketId, BooleanSupplier condition);
+
+    boolean contains(String basketId);
+
+    int size();
+}
@@ -0,0 +1,59 @@
+package com.ribaso.basketservice.port.basket.consumer;
+
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.service.impl.BookDetailsRefresher;
+import com.ribaso.basketservice.port.basket.producer.BookDetailsCache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives changed books from the book service in batches. Each batch refreshes the
+ * book details cache, so new items get the current title and price, and updates the
+ * items already in baskets through the {@link BookDetailsRefresher}. A batch that fails
+ * is rejected and delivered again.
+ */
+@Component
+@ConditionalOnProperty(name = "basket.book-changes.enabled", havingValue = "true", matchIfMissing = true)
+public class BookChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(BookChangeListener.class);
+
+    private final BookDetailsCache bookDetailsCache;
+
+    // Nur mit jpa-Speicher vorhanden
+    private final ObjectProvider<BookDetailsRefresher> refresher;
+
+    public BookChangeListener(BookDetailsCache bookDetailsCache, ObjectProvider<BookDetailsRefresher> refresher) {
+        this.bookDetailsCache = bookDetailsCache;
+        this.refresher = refresher;
+    }
+
+    @RabbitListener(queues = "${basket.book-changes.queue:basketservice.book-changes}",
+            containerFactory = "bookChangeListenerContainerFactory")
+    public void onBookChanges(List<Book> books) {
+        // Mehrere Aenderungen desselben Buchs im Batch: die letzte gilt
+        Map<String, Book> latest = new LinkedHashMap<>();
+        for (Book book : books) {
+            if (book != null && book.getId() != null) {
+                latest.put(book.getId(), book);
+            }
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+        latest.values().forEach(bookDetailsCache::put);
+        refresher.ifAvailable(r -> {
+            int updated = r.refresh(latest.values());
+            log.debug("Applied {} book changes to {} items", latest.size(), updated);
+        });
+    }
+}
@@ -0,0 +1,165 @@
+package com.ribaso.basketservice.port.basket.producer;
+
+import com.ribaso.basketservice.core.domain.model.BasketEvent;
+import com.ribaso.basketservice.core.domain.model.OutboxEntry;
+import com.ribaso.basketservice.core.domain.service.impl.BasketEventOutbox;
+import com.ribaso.basketservice.core.domain.service.interfaces.OutboxRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the basket events from the outbox to the basket events exchange. Each run takes the
+ * oldest rows in batches, publishes their events on one channel, waits for the broker to
+ * confirm all of them and only then deletes the rows. A failed batch stays in the outbox and
+ * is sent again, so consumers receive every event at least once and can drop duplicates by
+ * message ID ({@code <outbox id>-<index>}).
+ */
+@Component
+@ConditionalOnProperty(name = "basket.events.enabled", havingValue = "true", matchIfMissing = true)
+public class BasketEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(BasketEventPublisher.class);
+
+    private final OutboxRepository outboxRepository;
+
+    private final BasketEventOutbox outbox;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final String exchange;
+
+    private final int batchSize;
+
+    private final long confirmTimeoutMillis;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+
+    private final AtomicLong failedBatchCount = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler;
+
+    public BasketEventPublisher(OutboxRepository outboxRepository, BasketEventOutbox outbox,
+            RabbitTemplate rabbitTemplate, TransactionTemplate transactionTemplate,
+            @Value("${basket.events.exchange:basket-events}") String exchange,
+            @Value("${basket.events.publish-interval:1s}") Duration interval,
+            @Value("${basket.events.batch-size:500}") int batchSize,
+            @Value("${basket.events.confirm-timeout:5s}") Duration confirmTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.outbox = outbox;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.exchange = exchange;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMillis = confirmTimeout.toMillis();
+        if (interval.isZero()) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "basket-event-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::publishQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Publishes everything currently in the outbox and returns the number of events sent.
+     */
+    public synchronized int publish() {
+        long before = publishedCount.get();
+        int rows;
+        do {
+            rows = transactionTemplate.execute(status -> publishBatch());
+        } while (rows == batchSize);
+        return (int) (publishedCount.get() - before);
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatchCount.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Publishes one batch while its rows stay locked, so other instances skip them.
+     *
+     * @return number of outbox rows published
+     */
+    private int publishBatch() {
+        List<OutboxEntry> entries = outboxRepository.findOldestForPublishing(Limit.of(batchSize));
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(entries.size());
+        int events;
+        try {
+            events = rabbitTemplate.invoke(operations -> {
+                int sent = 0;
+                for (OutboxEntry entry : entries) {
+                    List<BasketEvent> entryEvents = outbox.read(entry);
+                    for (int i = 0; i < entryEvents.size(); i++) {
+                        BasketEvent event = entryEvents.get(i);
+                        String messageId = entry.getId() + "-" + i;
+                        operations.convertAndSend(exchange, event.routingKey(), event, message -> {
+                            message.getMessageProperties().setMessageId(messageId);
+                            message.getMessageProperties().setTimestamp(Date.from(entry.getCreatedAt()));
+                            message.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+                            return message;
+                        });
+                        sent++;
+                    }
+                    ids.add(entry.getId());
+                }
+                // Ein Warten fuer den ganzen Batch statt einer Bestaetigung je Nachricht
+                operations.waitForConfirmsOrDie(confirmTimeoutMillis);
+                return sent;
+            });
+        } catch (RuntimeException e) {
+            failedBatchCount.incrementAndGet();
+            throw e;
+        }
+        outboxRepository.deleteAllByIdInBatch(ids);
+        publishedCount.addAndGet(events);
+        return entries.size();
+    }
+
+    private void publishQuietly() {
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            log.warn("Publishing basket events failed, will retry: {}", e.toString());
+        }
+    }
+}
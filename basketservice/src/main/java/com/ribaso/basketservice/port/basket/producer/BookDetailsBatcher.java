@@ -0,0 +1,145 @@
+package com.ribaso.basketservice.port.basket.producer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.port.exception.UnknownItemIDException;
+
+/**
+ * Collects book IDs requested within a short window and sends them to the book
+ * service as one request. A batch is sent when the window elapses or as soon as it
+ * reaches the maximum size; the returned list is split back to the waiting callers.
+ */
+public class BookDetailsBatcher implements AutoCloseable {
+
+    private final Function<List<String>, CompletableFuture<List<Book>>> sender;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+
+    private Map<String, CompletableFuture<Book>> pending = new LinkedHashMap<>();
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final LongAdder batchesSent = new LongAdder();
+
+    private final LongAdder booksRequested = new LongAdder();
+
+    public BookDetailsBatcher(Function<List<String>, CompletableFuture<List<Book>>> sender, Duration window,
+            int maxBatchSize) {
+        this.sender = sender;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-details-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<Book> submit(String bookId) {
+        CompletableFuture<Book> result;
+        Map<String, CompletableFuture<Book>> batch = null;
+        synchronized (lock) {
+            result = pending.computeIfAbsent(bookId, id -> new CompletableFuture<>());
+            if (pending.size() >= maxBatchSize) {
+                batch = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (batch != null) {
+            send(batch);
+        }
+        return result.copy();
+    }
+
+    /**
+     * Sends all pending IDs immediately.
+     */
+    public void flush() {
+        Map<String, CompletableFuture<Book>> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    public long getBatchesSent() {
+        return batchesSent.sum();
+    }
+
+    public long getBooksRequested() {
+        return booksRequested.sum();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        scheduler.shutdown();
+    }
+
+    private Map<String, CompletableFuture<Book>> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        Map<String, CompletableFuture<Book>> batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void send(Map<String, CompletableFuture<Book>> batch) {
+        batchesSent.increment();
+        booksRequested.add(batch.size());
+        try {
+            sender.apply(new ArrayList<>(batch.keySet())).whenComplete((books, ex) -> {
+                if (ex != null) {
+                    batch.values().forEach(future -> future.completeExceptionally(ex));
+                } else {
+                    complete(batch, books);
+                }
+            });
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static void complete(Map<String, CompletableFuture<Book>> batch, List<Book> books) {
+        Map<String, Book> booksById = new HashMap<>();
+        if (books != null) {
+            for (Book book : books) {
+                if (book != null) {
+                    booksById.put(book.getId(), book);
+                }
+            }
+        }
+        batch.forEach((bookId, future) -> {
+            Book book = booksById.get(bookId);
+            if (book != null) {
+                future.complete(book);
+            } else {
+                future.completeExceptionally(new UnknownItemIDException("Book not found for ID: " + bookId));
+            }
+        });
+    }
+}
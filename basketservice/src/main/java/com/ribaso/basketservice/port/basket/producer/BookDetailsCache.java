@@ -0,0 +1,137 @@
+package com.ribaso.basketservice.port.basket.producer;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.port.exception.UnknownItemIDException;
+
+/**
+ * Bounded in-process cache of {@link Book} records received from the book service.
+ * Unknown book IDs are cached as well (with a shorter TTL), so repeated lookups of
+ * a missing book do not hit the broker again.
+ */
+@Component
+public class BookDetailsCache {
+
+    private final Cache<String, Optional<Book>> cache;
+
+    public BookDetailsCache(@Value("${basket.book-cache.max-size:10000}") long maxSize,
+                            @Value("${basket.book-cache.ttl:10m}") Duration ttl,
+                            @Value("${basket.book-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new BookExpiry(ttl, negativeTtl))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached book or loads it with the given loader. A loader that throws
+     * {@link UnknownItemIDException} leaves a negative entry behind.
+     */
+    public Book get(String bookId, Function<String, Book> loader) {
+        Optional<Book> cached = cache.getIfPresent(bookId);
+        if (cached != null) {
+            return unwrap(bookId, cached);
+        }
+        try {
+            Book book = loader.apply(bookId);
+            cache.put(bookId, Optional.of(book));
+            return book;
+        } catch (UnknownItemIDException e) {
+            cache.put(bookId, Optional.empty());
+            throw e;
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #get(String, Function)}. The cache is populated
+     * when the future returned by the loader completes.
+     */
+    public CompletableFuture<Book> getAsync(String bookId, Function<String, CompletableFuture<Book>> loader) {
+        Optional<Book> cached = cache.getIfPresent(bookId);
+        if (cached != null) {
+            return cached.map(CompletableFuture::completedFuture)
+                    .orElseGet(() -> CompletableFuture.failedFuture(notFound(bookId)));
+        }
+        return loader.apply(bookId).whenComplete((book, ex) -> {
+            if (ex == null) {
+                cache.put(bookId, Optional.of(book));
+            } else if (unwrap(ex) instanceof UnknownItemIDException) {
+                cache.put(bookId, Optional.empty());
+            }
+        });
+    }
+
+    public void put(Book book) {
+        cache.put(book.getId(), Optional.of(book));
+    }
+
+    public void invalidate(String bookId) {
+        cache.invalidate(bookId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Hit, miss and eviction counters since startup.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static Book unwrap(String bookId, Optional<Book> cached) {
+        return cached.orElseThrow(() -> notFound(bookId));
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private static UnknownItemIDException notFound(String bookId) {
+        return new UnknownItemIDException("Book not found for ID: " + bookId);
+    }
+
+    private static class BookExpiry implements Expiry<String, Optional<Book>> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        BookExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Optional<Book> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<Book> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<Book> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ribaso.basketservice.port.basket.producer;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
+
+import com.ribaso.basketservice.port.exception.UnknownItemIDException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records the latency of book service request/reply round-trips as
+ * {@code basket.book-lookup} timer (with percentile histogram), tagged by mode
+ * ({@code sync}, {@code async}, {@code batch}) and outcome ({@code success},
+ * {@code not_found}, {@code timeout}, {@code error}). Timeouts are also counted in
+ * {@code basket.book-lookup.timeouts}.
+ */
+public class BookLookupMetrics {
+
+    static final String TIMER = "basket.book-lookup";
+
+    static final String TIMEOUTS = "basket.book-lookup.timeouts";
+
+    private final MeterRegistry meterRegistry;
+
+    public BookLookupMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Stops the sample. {@code failure} is null for a successful lookup.
+     */
+    public void record(Timer.Sample sample, String mode, Throwable failure) {
+        String outcome = outcome(failure);
+        sample.stop(Timer.builder(TIMER)
+                .description("Book service request/reply round-trips")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        if ("timeout".equals(outcome)) {
+            Counter.builder(TIMEOUTS)
+                    .description("Book lookups without reply within the timeout")
+                    .tag("mode", mode)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private static String outcome(Throwable failure) {
+        while ((failure instanceof CompletionException || failure instanceof ExecutionException)
+                && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if (failure == null) {
+            return "success";
+        }
+        if (failure instanceof UnknownItemIDException) {
+            return "not_found";
+        }
+        if (failure instanceof TimeoutException || failure instanceof AmqpReplyTimeoutException) {
+            return "timeout";
+        }
+        return "error";
+    }
+}
@@ -1,34 +1,249 @@
 package com.ribaso.basketservice.port.basket.producer;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import jakarta.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.RabbitConverterFuture;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 
 import com.ribaso.basketservice.core.domain.model.Book;
 import com.ribaso.basketservice.port.exception.UnknownItemIDException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class GetBookDetails {
 
     private static final Logger log = LoggerFactory.getLogger(Book.class);
-    
+
     @Autowired
     private final RabbitTemplate rabbitTemplate;
 
-    public GetBookDetails(final RabbitTemplate rabbitTemplate) {
+    private final AsyncRabbitTemplate asyncRabbitTemplate;
+
+    private final BookDetailsCache bookDetailsCache;
+
+    private final Duration timeout;
+
+    // Obergrenze fuer Timeouts pro Aufruf, zugleich Receive-Timeout des AsyncRabbitTemplate
+    private final Duration maxTimeout;
+
+    private final BookLookupMetrics metrics;
+
+    // Gleichzeitige Anfragen fuer dieselbe Buch-ID teilen sich einen AMQP-Request
+    private final SingleFlight<String, Book> lookups = new SingleFlight<>();
+
+    // Nur gesetzt, wenn der Batch-Modus aktiv ist
+    private final BookDetailsBatcher batcher;
+
+    public GetBookDetails(final RabbitTemplate rabbitTemplate, final AsyncRabbitTemplate asyncRabbitTemplate,
+            final BookDetailsCache bookDetailsCache, @Value("${basket.book-lookup.timeout:5s}") final Duration timeout,
+            @Value("${basket.book-lookup.max-timeout:30s}") final Duration maxTimeout,
+            @Value("${basket.book-lookup.batch.enabled:false}") final boolean batchEnabled,
+            @Value("${basket.book-lookup.batch.window:10ms}") final Duration batchWindow,
+            @Value("${basket.book-lookup.batch.max-size:50}") final int batchMaxSize,
+            final MeterRegistry meterRegistry) {
         this.rabbitTemplate = rabbitTemplate;
+        this.metrics = new BookLookupMetrics(meterRegistry);
+        this.asyncRabbitTemplate = asyncRabbitTemplate;
+        this.bookDetailsCache = bookDetailsCache;
+        if (timeout.compareTo(maxTimeout) > 0) {
+            throw new IllegalArgumentException("basket.book-lookup.timeout " + timeout
+                    + " exceeds basket.book-lookup.max-timeout " + maxTimeout);
+        }
+        this.timeout = timeout;
+        this.maxTimeout = maxTimeout;
+        this.batcher = batchEnabled
+                ? new BookDetailsBatcher(this::requestBookDetailsBatch, batchWindow, batchMaxSize)
+                : null;
     }
 
     public Book getBookDetails(String bookId) {
-    log.info("Sending book ID: {}", bookId);
-    Book response =  (Book) rabbitTemplate.convertSendAndReceive("exchange", "bookRoutingKey", bookId);
-    log.info(bookId, response);
-    if (response == null) {
-        throw new UnknownItemIDException("Book not found for ID: " + bookId);
+        if (batcher != null) {
+            return bookDetailsCache.get(bookId,
+                    id -> lookups.execute(id, () -> await(withTimeout(batcher.submit(id), timeout))));
+        }
+        return bookDetailsCache.get(bookId,
+                id -> lookups.execute(id, () -> requestBookDetails(id)));
+    }
+
+    /**
+     * Looks up several books at once. All lookups are started before waiting, so they are
+     * sent in parallel, or as one batch request when batch mode is enabled. Unknown IDs are
+     * missing from the result.
+     */
+    public Map<String, Book> getBookDetails(Collection<String> bookIds) {
+        Map<String, CompletableFuture<Book>> pending = new LinkedHashMap<>();
+        for (String bookId : bookIds) {
+            pending.computeIfAbsent(bookId, this::getBookDetailsAsync);
+        }
+        if (batcher != null) {
+            batcher.flush();
+        }
+
+        Map<String, Book> books = new LinkedHashMap<>();
+        pending.forEach((bookId, future) -> {
+            try {
+                books.put(bookId, await(future));
+            } catch (UnknownItemIDException e) {
+                log.info("Book not found for ID: {}", bookId);
+            }
+        });
+        return books;
+    }
+
+    /**
+     * Non-blocking lookup. The returned future completes on the AMQP reply thread, or
+     * exceptionally with a {@link TimeoutException} after the configured timeout.
+     */
+    public CompletableFuture<Book> getBookDetailsAsync(String bookId) {
+        return getBookDetailsAsync(bookId, timeout);
+    }
+
+    /**
+     * Non-blocking lookup with its own timeout. The timeout may not exceed
+     * {@code basket.book-lookup.max-timeout}, the receive timeout of the AMQP template;
+     * a longer one could never be honoured and is rejected.
+     *
+     * @throws IllegalArgumentException if the timeout exceeds the maximum
+     */
+    public CompletableFuture<Book> getBookDetailsAsync(String bookId, Duration timeout) {
+        if (timeout.compareTo(maxTimeout) > 0) {
+            throw new IllegalArgumentException("Book lookup timeout " + timeout
+                    + " exceeds basket.book-lookup.max-timeout " + maxTimeout);
+        }
+        if (batcher != null) {
+            // Die Batch-Anfrage teilen sich Aufrufer mit verschiedenen Timeouts, daher gilt fuer
+            // sie nur die Obergrenze; den eigenen Timeout bekommt jeder Aufrufer auf seinem Future
+            return withTimeout(bookDetailsCache.getAsync(bookId,
+                    id -> lookups.executeAsync(id, () -> batcher.submit(id))), timeout);
+        }
+        return bookDetailsCache.getAsync(bookId,
+                id -> lookups.executeAsync(id, () -> requestBookDetailsAsync(id, timeout)));
+    }
+
+    /**
+     * Number of lookups that were sent to the book service.
+     */
+    public long getRequestedLookupCount() {
+        return lookups.executedCount();
+    }
+
+    /**
+     * Number of lookups that joined an identical in-flight request instead of sending their own.
+     */
+    public long getCoalescedLookupCount() {
+        return lookups.coalescedCount();
+    }
+
+    /**
+     * Number of batch requests sent, 0 unless batch mode is enabled.
+     */
+    public long getBatchRequestCount() {
+        return batcher != null ? batcher.getBatchesSent() : 0;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    private Book requestBookDetails(String bookId) {
+        log.info("Sending book ID: {}", bookId);
+        Timer.Sample sample = metrics.start();
+        try {
+            // Nicht convertSendAndReceive: das liefert null sowohl bei Zeitueberschreitung als auch
+            // fuer eine leere Antwort, und nur die leere Antwort heisst "Buch unbekannt"
+            MessageConverter converter = rabbitTemplate.getMessageConverter();
+            Message reply = rabbitTemplate.sendAndReceive("exchange", "bookRoutingKey",
+                    converter.toMessage(bookId, new MessageProperties()));
+            if (reply == null) {
+                throw new AmqpReplyTimeoutException("Book service did not respond in time", null);
+            }
+            if (!(converter.fromMessage(reply) instanceof Book response)) {
+                throw new UnknownItemIDException("Book not found for ID: " + bookId);
+            }
+            metrics.record(sample, "sync", null);
+            return response;
+        } catch (RuntimeException e) {
+            metrics.record(sample, "sync", e);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Book> requestBookDetailsAsync(String bookId, Duration timeout) {
+        log.info("Sending book ID asynchronously: {}", bookId);
+        Timer.Sample sample = metrics.start();
+        RabbitConverterFuture<Book> reply = asyncRabbitTemplate.convertSendAndReceive("exchange", "bookRoutingKey", bookId);
+        return reply.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, ex) -> {
+                    if (ex instanceof TimeoutException) {
+                        // Gibt die Korrelation frei, eine spaete Antwort wird verworfen
+                        reply.cancel(true);
+                    }
+                })
+                .thenApply(response -> {
+                    if (response == null) {
+                        throw new UnknownItemIDException("Book not found for ID: " + bookId);
+                    }
+                    return response;
+                })
+                .whenComplete((response, ex) -> metrics.record(sample, "async", ex));
+    }
+
+    private CompletableFuture<List<Book>> requestBookDetailsBatch(List<String> bookIds) {
+        log.info("Sending batch of {} book IDs", bookIds.size());
+        Timer.Sample sample = metrics.start();
+        RabbitConverterFuture<List<Book>> reply = asyncRabbitTemplate.convertSendAndReceiveAsType("exchange",
+                "bookBatchRoutingKey", bookIds, new ParameterizedTypeReference<List<Book>>() {});
+        return reply.orTimeout(maxTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, ex) -> {
+                    if (ex instanceof TimeoutException) {
+                        reply.cancel(true);
+                    }
+                    metrics.record(sample, "batch", ex);
+                });
+    }
+
+    private static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, Duration timeout) {
+        return future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static Book await(CompletableFuture<Book> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new AmqpReplyTimeoutException("Book service did not respond in time", null);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
-    return response;
-}
 
 }
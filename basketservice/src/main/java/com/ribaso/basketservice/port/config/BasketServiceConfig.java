@@ -0,0 +1,53 @@
+package com.ribaso.basketservice.port.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.ribaso.basketservice.core.domain.service.impl.LaneBasketService;
+import com.ribaso.basketservice.core.domain.service.impl.RetryingBasketService;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+
+/**
+ * The {@link BasketService} seen by the controller: the storage implementation selected by
+ * {@code basket.storage.mode}, with {@code basket.lanes.enabled=true} wrapped in the
+ * per-basket lanes, and around that the retry policy for concurrent edits.
+ */
+@Configuration
+public class BasketServiceConfig {
+
+    @Bean
+    @Primary
+    public BasketService basketService(RetryingBasketService retryingBasketService) {
+        return retryingBasketService;
+    }
+
+    // Der Retry liegt aussen: das Backoff schlaeft im Thread des Aufrufers, nicht in der Lane,
+    // und ein Retry stellt sich in der Lane neu an, statt andere Warenkoerbe aufzuhalten
+    @Bean
+    public RetryingBasketService retryingBasketService(@Qualifier("basketStorage") BasketService basketStorage,
+            ObjectProvider<LaneBasketService> laneBasketService,
+            @Value("${basket.retry.max-attempts:4}") int maxAttempts,
+            @Value("${basket.retry.initial-backoff:10ms}") Duration initialBackoff,
+            @Value("${basket.retry.max-backoff:200ms}") Duration maxBackoff) {
+        LaneBasketService lanes = laneBasketService.getIfAvailable();
+        return new RetryingBasketService(lanes != null ? lanes : basketStorage, maxAttempts, initialBackoff, maxBackoff);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "basket.lanes.enabled", havingValue = "true")
+    public LaneBasketService laneBasketService(@Qualifier("basketStorage") BasketService basketStorage,
+            GetBookDetails getBookDetails,
+            @Value("${basket.lanes.count:0}") int laneCount,
+            @Value("${basket.lanes.queue-capacity:256}") int queueCapacity) {
+        int lanes = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        return new LaneBasketService(basketStorage, getBookDetails, lanes, queueCapacity);
+    }
+}
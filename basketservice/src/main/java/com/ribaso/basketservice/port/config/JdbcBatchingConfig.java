@@ -0,0 +1,43 @@
+package com.ribaso.basketservice.port.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Driver side of the JDBC batching configured with {@code hibernate.jdbc.batch_size}. The
+ * PostgreSQL driver sends a batch of inserts as separate statements in one round trip;
+ * with {@code reWriteBatchedInserts} it folds them into multi-row {@code INSERT ... VALUES}
+ * statements. The property is only added for PostgreSQL URLs and only when it is not
+ * configured already, so other drivers never see it.
+ */
+@Configuration
+@ConditionalOnClass(HikariDataSource.class)
+public class JdbcBatchingConfig {
+
+    static final String REWRITE_BATCHED_INSERTS = "reWriteBatchedInserts";
+
+    @Bean
+    public static BeanPostProcessor postgresBatchedInsertsPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    enableBatchedInserts(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static void enableBatchedInserts(HikariDataSource dataSource) {
+        String url = dataSource.getJdbcUrl();
+        if (url != null && url.startsWith("jdbc:postgresql:") && !url.contains(REWRITE_BATCHED_INSERTS)
+                && !dataSource.getDataSourceProperties().containsKey(REWRITE_BATCHED_INSERTS)) {
+            dataSource.addDataSourceProperty(REWRITE_BATCHED_INSERTS, "true");
+        }
+    }
+}
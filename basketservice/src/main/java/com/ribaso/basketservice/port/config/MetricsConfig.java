@@ -0,0 +1,169 @@
+package com.ribaso.basketservice.port.config;
+
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ribaso.basketservice.core.domain.service.impl.BasketSnapshotCache;
+import com.ribaso.basketservice.core.domain.service.impl.BasketTotalsConsistencyCheck;
+import com.ribaso.basketservice.core.domain.service.impl.BookDetailsRefresher;
+import com.ribaso.basketservice.core.domain.service.impl.InMemoryBasketStore;
+import com.ribaso.basketservice.core.domain.service.impl.LaneBasketService;
+import com.ribaso.basketservice.core.domain.service.impl.PriceParser;
+import com.ribaso.basketservice.core.domain.service.impl.RetryingBasketService;
+import com.ribaso.basketservice.port.basket.producer.BasketEventPublisher;
+import com.ribaso.basketservice.port.basket.producer.BookDetailsCache;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Micrometer wiring. HTTP, Hikari and Hibernate metrics come from the actuator
+ * auto-configuration (the Hibernate ones only with {@code basket.metrics.hibernate-statistics=true});
+ * this class adds the service's own counters and caches.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Enables {@code @Timed} on the controller, one timer per basket operation.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder bookLookupMetrics(GetBookDetails getBookDetails) {
+        return registry -> {
+            FunctionCounter.builder("basket.book-lookup.requested", getBookDetails, GetBookDetails::getRequestedLookupCount)
+                    .description("Lookups sent to the book service")
+                    .register(registry);
+            FunctionCounter.builder("basket.book-lookup.coalesced", getBookDetails, GetBookDetails::getCoalescedLookupCount)
+                    .description("Lookups that joined an identical in-flight request")
+                    .register(registry);
+            FunctionCounter.builder("basket.book-lookup.batches", getBookDetails, GetBookDetails::getBatchRequestCount)
+                    .description("Batch requests sent to the book service")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder priceParserMetrics() {
+        return registry -> FunctionCounter.builder("basket.price.parse.failures", PriceParser.class, type -> PriceParser.getFailureCount())
+                .description("Book prices that could not be parsed")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder cacheMetrics(BookDetailsCache bookDetailsCache, BasketSnapshotCache basketCache) {
+        return registry -> {
+            bindCache(registry, "bookDetails", bookDetailsCache, BookDetailsCache::stats, BookDetailsCache::size);
+            bindCache(registry, "basketSnapshots", basketCache, BasketSnapshotCache::stats, BasketSnapshotCache::size);
+        };
+    }
+
+    @Bean
+    public MeterBinder writeBehindMetrics(ObjectProvider<InMemoryBasketStore> basketStore) {
+        return registry -> basketStore.ifAvailable(store -> {
+            Gauge.builder("basket.write-behind.pending", store, InMemoryBasketStore::getDirtyCount)
+                    .description("Basket changes not yet flushed to the database")
+                    .register(registry);
+            Gauge.builder("basket.write-behind.resident", store, InMemoryBasketStore::getResidentCount)
+                    .description("Baskets held in memory")
+                    .register(registry);
+            FunctionCounter.builder("basket.write-behind.evicted", store, InMemoryBasketStore::getEvictedCount)
+                    .description("Idle baskets dropped from memory after a flush")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder retryMetrics(RetryingBasketService basketService) {
+        return registry -> {
+            FunctionCounter.builder("basket.conflicts", basketService, RetryingBasketService::getConflictCount)
+                    .description("Basket mutations that failed on a concurrent edit")
+                    .register(registry);
+            FunctionCounter.builder("basket.retries", basketService, RetryingBasketService::getRetryCount)
+                    .description("Basket mutations retried after a conflict")
+                    .register(registry);
+            FunctionCounter.builder("basket.retries.exhausted", basketService, RetryingBasketService::getExhaustedCount)
+                    .description("Basket mutations that still conflicted after the last attempt")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder laneMetrics(ObjectProvider<LaneBasketService> laneBasketService) {
+        return registry -> laneBasketService.ifAvailable(lanes -> {
+            for (int i = 0; i < lanes.getLaneCount(); i++) {
+                int lane = i;
+                Gauge.builder("basket.lanes.queue.depth", lanes, l -> l.getQueueDepth(lane))
+                        .description("Basket mutations waiting in the lane")
+                        .tag("lane", String.valueOf(lane))
+                        .register(registry);
+            }
+            FunctionCounter.builder("basket.lanes.rejected", lanes, LaneBasketService::getRejectedCount)
+                    .description("Basket mutations rejected because their lane was full")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder totalsCheckMetrics(ObjectProvider<BasketTotalsConsistencyCheck> totalsCheck) {
+        return registry -> totalsCheck.ifAvailable(check -> {
+            FunctionCounter.builder("basket.totals.checked", check, BasketTotalsConsistencyCheck::getCheckedCount)
+                    .description("Baskets whose stored totals were checked")
+                    .register(registry);
+            FunctionCounter.builder("basket.totals.drift", check, BasketTotalsConsistencyCheck::getDriftCount)
+                    .description("Baskets whose stored totals differed from their items")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder basketEventMetrics(ObjectProvider<BasketEventPublisher> publisher) {
+        return registry -> publisher.ifAvailable(p -> {
+            FunctionCounter.builder("basket.events.published", p, BasketEventPublisher::getPublishedCount)
+                    .description("Basket events confirmed by the broker")
+                    .register(registry);
+            FunctionCounter.builder("basket.events.failed-batches", p, BasketEventPublisher::getFailedBatchCount)
+                    .description("Event batches that could not be published and stay in the outbox")
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder bookChangeMetrics(ObjectProvider<BookDetailsRefresher> refresher) {
+        return registry -> refresher.ifAvailable(r -> FunctionCounter.builder("basket.book-changes.items-updated", r, BookDetailsRefresher::getUpdatedItemCount)
+                .description("Basket items whose name or price was refreshed from a book change")
+                .register(registry));
+    }
+
+    // Gleiche Namen und Tags wie Micrometers CaffeineCacheMetrics
+    private static <C> void bindCache(MeterRegistry registry, String name, C cache,
+            Function<C, CacheStats> stats, ToLongFunction<C> size) {
+        Gauge.builder("cache.size", cache, c -> size.applyAsLong(c))
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, c -> stats.apply(c).hitCount())
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, c -> stats.apply(c).missCount())
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, c -> stats.apply(c).evictionCount())
+                .tag("cache", name)
+                .register(registry);
+    }
+}
@@ -1,5 +1,6 @@
 package com.ribaso.basketservice.port.config;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -7,10 +8,15 @@ import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.DefaultClassMapper;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -32,6 +38,60 @@ public class RabbitMQConfig {
         return BindingBuilder.bind(bookQueue).to(bookExchange).with("bookRoutingKey");
     }
 
+    @Bean
+    public Queue bookBatchQueue() {
+        return new Queue("bookBatchQueue");
+    }
+
+    @Bean
+    public Binding bookBatchBinding(Queue bookBatchQueue, DirectExchange bookExchange) {
+        // Sammelanfragen: Liste von Buch-IDs rein, Liste von Buechern zurueck
+        return BindingBuilder.bind(bookBatchQueue).to(bookExchange).with("bookBatchRoutingKey");
+    }
+
+    @Bean
+    public TopicExchange basketEventExchange(@Value("${basket.events.exchange:basket-events}") String name) {
+        // Warenkorb-Ereignisse fuer andere Dienste: basket.item.added, basket.item.removed, basket.removed
+        return new TopicExchange(name);
+    }
+
+    @Bean
+    public TopicExchange bookEventExchange(@Value("${basket.book-changes.exchange:book-events}") String name) {
+        return new TopicExchange(name);
+    }
+
+    @Bean
+    public Queue bookChangeQueue(@Value("${basket.book-changes.queue:basketservice.book-changes}") String name) {
+        return new Queue(name);
+    }
+
+    @Bean
+    public Binding bookChangeBinding(Queue bookChangeQueue, TopicExchange bookEventExchange,
+            @Value("${basket.book-changes.routing-key:book.updated}") String routingKey) {
+        // Geaenderte Buecher aus dem BookService, siehe BookChangeListener
+        return BindingBuilder.bind(bookChangeQueue).to(bookEventExchange).with(routingKey);
+    }
+
+    /**
+     * Listener-Container, der dem Listener bis zu {@code batch-size} Nachrichten auf einmal
+     * uebergibt; weniger, wenn {@code batch-timeout} lang keine weitere eintrifft.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory bookChangeListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+            @Value("${basket.book-changes.batch-size:100}") int batchSize,
+            @Value("${basket.book-changes.batch-timeout:500ms}") Duration batchTimeout) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(producerJackson2MessageConverter());
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(batchSize);
+        factory.setReceiveTimeout(batchTimeout.toMillis());
+        return factory;
+    }
+
     @Bean
     public Jackson2JsonMessageConverter producerJackson2MessageConverter() {
         Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
@@ -58,4 +118,15 @@ public class RabbitMQConfig {
         return rabbitTemplate;
     }
 
+    @Bean
+    public AsyncRabbitTemplate asyncRabbitTemplate(final ConnectionFactory connectionFactory,
+            @Value("${basket.book-lookup.max-timeout:30s}") Duration maxTimeout) {
+        // Nutzt Direct Reply-To, damit waehrend des Wartens auf die Antwort kein Thread blockiert
+        final AsyncRabbitTemplate asyncRabbitTemplate = new AsyncRabbitTemplate(connectionFactory, "exchange", "bookRoutingKey");
+        asyncRabbitTemplate.getRabbitTemplate().setMessageConverter(producerJackson2MessageConverter());
+        // Die Timeouts pro Aufruf setzt GetBookDetails; das Template darf keinen davon vorher abbrechen
+        asyncRabbitTemplate.setReceiveTimeout(maxTimeout.toMillis());
+        return asyncRabbitTemplate;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.ribaso.basketservice.port.config;
+
+import org.springframework.boot.autoconfigure.amqp.ConnectionFactoryCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+/**
+ * Virtual-thread mode, enabled with {@code spring.threads.virtual.enabled=true} on Java 21.
+ * Spring Boot itself moves Tomcat request handling, the {@code applicationTaskExecutor} and
+ * the Rabbit listener containers to virtual threads. This adds the RabbitMQ client threads
+ * that deliver replies to {@code RabbitTemplate} and {@code AsyncRabbitTemplate}, so a
+ * request waiting in {@code convertSendAndReceive} holds no platform thread anywhere.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+    @Bean
+    public ConnectionFactoryCustomizer virtualThreadConnectionFactoryCustomizer() {
+        return connectionFactory -> connectionFactory.setThreadFactory(
+                new VirtualThreadTaskExecutor("rabbitmq-").getVirtualThreadFactory());
+    }
+}
@@ -0,0 +1,7 @@
+package com.ribaso.basketservice.port.exception;
+
+public class BasketBusyException extends RuntimeException {
+    public BasketBusyException(String message) {
+        super(message);
+    }
+}
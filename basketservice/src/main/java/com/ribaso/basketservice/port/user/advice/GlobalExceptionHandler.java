@@ -1,32 +1,84 @@
 package com.ribaso.basketservice.port.user.advice;
 
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 
+import com.ribaso.basketservice.port.exception.BasketBusyException;
 import com.ribaso.basketservice.port.exception.InvalidAmountException;
 import com.ribaso.basketservice.port.exception.UnknownBasketIDException;
 import com.ribaso.basketservice.port.exception.UnknownItemIDException;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(UnknownBasketIDException.class)
     public ResponseEntity<?> handleBasketNotFoundException(UnknownBasketIDException ex, WebRequest request) {
+        count(ex);
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
     @ExceptionHandler(UnknownItemIDException.class)
     public ResponseEntity<?> handleItemNotFoundException(UnknownItemIDException ex, WebRequest request) {
+        count(ex);
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
     @ExceptionHandler(InvalidAmountException.class)
     public ResponseEntity<?> handleInvalidAmountException(InvalidAmountException ex, WebRequest request) {
+        count(ex);
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<?> handleTimeoutException(TimeoutException ex, WebRequest request) {
+        count(ex);
+        return new ResponseEntity<>("Book service did not respond in time", HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @ExceptionHandler(AmqpReplyTimeoutException.class)
+    public ResponseEntity<?> handleReplyTimeoutException(AmqpReplyTimeoutException ex, WebRequest request) {
+        count(ex);
+        return new ResponseEntity<>("Book service did not respond in time", HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<?> handleConcurrencyFailureException(ConcurrencyFailureException ex, WebRequest request) {
+        count(ex);
+        return new ResponseEntity<>("Basket was changed concurrently, please retry", HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(BasketBusyException.class)
+    public ResponseEntity<?> handleBasketBusyException(BasketBusyException ex, WebRequest request) {
+        count(ex);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ex.getMessage());
+    }
+
     // Weitere Exception-Handler können hier hinzugefügt werden
+
+    private void count(Exception ex) {
+        Counter.builder("basket.errors")
+                .description("Exceptions answered by the exception handler")
+                .tag("exception", ex.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
 }
@@ -1,23 +1,37 @@
 package com.ribaso.basketservice.port.user.controller;
 
 import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperationResult;
+import com.ribaso.basketservice.core.domain.model.BasketSummary;
 import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.model.ItemSummary;
 import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
 import com.ribaso.basketservice.port.exception.BasketNotFoundException;
 
+import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/baskets")
+@Timed(value = "basket.operation", description = "Basket operations by controller method", histogram = true)
 @CrossOrigin(origins = "http://localhost:3000")
 public class BasketController {
 
@@ -34,17 +48,41 @@ public class BasketController {
     }
     
     @GetMapping("/{basketID}")
-    @Operation(summary = "Get a basket", description = "Retrieves a specific basket by its ID. Returns NOT FOUND if the basket does not exist.")
+    @Operation(summary = "Get a basket", description = "Retrieves a specific basket by its ID. Returns NOT FOUND if the basket does not exist and NOT MODIFIED if it still matches the If-None-Match ETag.")
     public ResponseEntity<Basket> getBasket(@PathVariable
     @Parameter(description = "The unique identifier of the basket to retrieve.")
-    String basketID) {
+    String basketID, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+    @Parameter(description = "ETag of the basket the client already has.")
+    String ifNoneMatch) {
         try {
-            return ResponseEntity.ok(basketService.getBasket(basketID));
+            // Nur die Version lesen, ein unveraenderter Warenkorb wird nicht geladen
+            if (ifNoneMatch != null) {
+                long version = basketService.getBasketVersion(basketID);
+                if (matches(ifNoneMatch, version)) {
+                    return notModified(version);
+                }
+            }
+            Basket basket = basketService.getBasket(basketID);
+            return withETag(basket, basketService.getBasketVersion(basket));
         } catch (BasketNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         }
     }
 
+    @GetMapping("/{basketID}/summary")
+    @Operation(summary = "Get a basket summary", description = "Retrieves the item count and total costs of a basket without its items. Returns NOT MODIFIED if the basket still matches the If-None-Match ETag.")
+    public ResponseEntity<BasketSummary> getBasketSummary(@PathVariable
+    @Parameter(description = "The unique identifier of the basket.")
+    String basketID, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+    @Parameter(description = "ETag of the basket the client already has.")
+    String ifNoneMatch) {
+        BasketSummary summary = basketService.getBasketSummary(basketID);
+        if (ifNoneMatch != null && matches(ifNoneMatch, summary.getVersion())) {
+            return notModified(summary.getVersion());
+        }
+        return withETag(summary, summary.getVersion());
+    }
+
     @DeleteMapping("/{basketID}")
     @Operation(summary = "Remove a basket", description = "Removes a basket by its ID.")
     public ResponseEntity<Boolean> removeBasket(@PathVariable
@@ -61,6 +99,14 @@ public class BasketController {
         return ResponseEntity.ok(basketService.getTotalCosts(basketID));
     }
 
+    @PostMapping("/total-costs")
+    @Operation(summary = "Get total costs of several baskets", description = "Retrieves the total costs for a list of basket IDs in one call. Unknown baskets are omitted from the result.")
+    public ResponseEntity<Map<String, BigDecimal>> getTotalCosts(@RequestBody
+    @Parameter(description = "The unique identifiers of the baskets.")
+    List<String> basketIDs) {
+        return ResponseEntity.ok(basketService.getTotalCosts(basketIDs));
+    }
+
     @GetMapping("/user/{userID}")
     @Operation(summary = "Get basket ID by user ID", description = "Retrieves the basket ID associated with a user ID.")
     public ResponseEntity<String> getBasketID(@PathVariable 
@@ -69,6 +115,23 @@ public class BasketController {
         return ResponseEntity.ok(basketService.getBasketID(userID));
     }
 
+    @GetMapping("/{basketID}/items")
+    @Operation(summary = "List the items of a basket", description = "Retrieves the items of a basket page by page, ordered by item ID unless a sort is given. Returns NOT MODIFIED if the basket still matches the If-None-Match ETag.")
+    public ResponseEntity<PagedModel<ItemSummary>> getItems(@PathVariable
+    @Parameter(description = "The unique identifier of the basket.")
+    String basketID, @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC)
+    @Parameter(description = "Page number, page size and sort.")
+    Pageable pageable, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+    @Parameter(description = "ETag of the basket the client already has.")
+    String ifNoneMatch) {
+        // Version vor der Seite lesen: aendert sich der Warenkorb dazwischen, ist das ETag nur zu alt, nie zu neu
+        long version = basketService.getBasketVersion(basketID);
+        if (ifNoneMatch != null && matches(ifNoneMatch, version)) {
+            return notModified(version);
+        }
+        return withETag(new PagedModel<>(basketService.getItems(basketID, pageable)), version);
+    }
+
     @GetMapping("/{basketID}/items/{itemID}")
     @Operation(summary = "Get an item in a basket", description = "Retrieves a specific item from a specified basket.")
     public ResponseEntity<Item> getItem(@PathVariable 
@@ -91,6 +154,28 @@ public class BasketController {
         return ResponseEntity.ok(basketService.addItem(basketID, itemID, amount));
     }
 
+    @PostMapping("/{basketID}/items/async")
+    @Operation(summary = "Add an item to a basket asynchronously", description = "Adds a specific item to a basket without holding a request thread while the book details are fetched.")
+    public CompletableFuture<ResponseEntity<Boolean>> addItemAsync(@PathVariable 
+    @Parameter(description = "The user ID associated with the basket.")
+    String basketID, @RequestParam
+    @Parameter(description = "The unique identifier of the item to retrieve.")
+    String itemID, @RequestParam 
+    @Parameter(description = "The amount of the item to add.")
+    int amount) {
+        return basketService.addItemAsync(basketID, itemID, amount).thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/{basketID}/items/bulk")
+    @Operation(summary = "Change several items of a basket", description = "Applies a list of ADD, REMOVE and SET operations in one transaction and returns one result per operation. Invalid lines are reported and do not abort the others.")
+    public ResponseEntity<List<BasketItemOperationResult>> applyItemOperations(@PathVariable
+    @Parameter(description = "The user ID associated with the basket.")
+    String basketID, @RequestBody
+    @Parameter(description = "The operations to apply, in order.")
+    List<BasketItemOperation> operations) {
+        return ResponseEntity.ok(basketService.applyItemOperations(basketID, operations));
+    }
+
     @DeleteMapping("/{basketID}/items/{itemID}")
     @Operation(summary = "Remove an item from a basket", description = "Removes a specified amount of an item from a basket.")
     public ResponseEntity<Boolean> removeItem(@PathVariable
@@ -102,4 +187,35 @@ public class BasketController {
     int amount) {
         return ResponseEntity.ok(basketService.removeItem(basketID, itemID, amount));
     }
+
+    private static <T> ResponseEntity<T> withETag(T body, Long version) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (version != null) {
+            response.eTag(eTag(version));
+        }
+        return response.body(body);
+    }
+
+    private static <T> ResponseEntity<T> notModified(long version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(version)).build();
+    }
+
+    private static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // If-None-Match vergleicht schwach (RFC 9110), ein W/-Praefix zaehlt daher nicht
+    private static boolean matches(String ifNoneMatch, long version) {
+        String eTag = eTag(version);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
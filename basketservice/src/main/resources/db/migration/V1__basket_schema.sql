@@ -0,0 +1,38 @@
+-- Schema der Warenkoerbe, wie es Hibernate vor der Umstellung auf Flyway erzeugt hat
+-- (ddl-auto, PostgreSQLDialect, Spring-Namensstrategie). Bestehende Datenbanken ohne Flyway-Historie
+-- werden auf dieser Version als Baseline uebernommen (spring.flyway.baseline-on-migrate), leere
+-- Datenbanken legen es hier an. Aenderungen gehoeren in spaetere Versionen, nie hierher.
+-- Laeuft auf PostgreSQL und H2 (Tests).
+
+create table basket (
+    id varchar(255) not null,
+    user_id varchar(255),
+    primary key (id)
+);
+
+-- Antworten des BookService; als Entitaet gemappt, aber nicht gespeichert
+create table book (
+    num_pages integer not null,
+    abstract_text varchar(255),
+    author varchar(255),
+    id varchar(255) not null,
+    isbn varchar(255),
+    price varchar(255),
+    publisher varchar(255),
+    subtitle varchar(255),
+    title varchar(255),
+    primary key (id)
+);
+
+-- id ist die Buch-ID, damit konnte ein Buch nur in einem Warenkorb liegen
+create table item (
+    amount integer not null,
+    price numeric(38, 2),
+    basket_id varchar(255),
+    id varchar(255) not null,
+    name varchar(255),
+    primary key (id)
+);
+
+-- Name wie von Hibernate vergeben
+alter table item add constraint FKfa0r8gvappsdoa4vdrcymwe7c foreign key (basket_id) references basket;
@@ -0,0 +1,28 @@
+-- Artikel je Warenkorb und Buch statt je Buch: Schluessel (basket_id, book_id), Version fuer die
+-- optimistische Sperre und ein Preis mit zwei Nachkommastellen, wie ihn der Warenkorb speichert.
+-- Ein Primaerschluessel laesst sich nicht auf beiden Datenbanken gleich ersetzen (die Namen vergeben
+-- PostgreSQL und H2 selbst), daher wird die Tabelle neu angelegt und umkopiert.
+
+create table item_new (
+    basket_id varchar(255) not null,
+    book_id varchar(255) not null,
+    name varchar(255),
+    amount integer not null,
+    -- Preis in der Waehrung des BookService, zwei Nachkommastellen wie im Warenkorb gespeichert
+    price numeric(12, 2) not null,
+    version bigint,
+    -- basket_id vorn: der Primaerschluessel dient zugleich als Index des Fremdschluessels, fuer
+    -- alle Artikel eines Warenkorbs, das Loeschen per Kaskade und die Summen-Abfragen
+    constraint item_pk primary key (basket_id, book_id),
+    constraint item_basket_fk foreign key (basket_id) references basket (id)
+);
+
+-- Artikel ohne Warenkorb waren nirgends mehr erreichbar und entfallen. Ein fehlender Preis kam nur
+-- aus einer gescheiterten Umwandlung, die der alte Code sonst als 0 gespeichert hat. Version 0, damit
+-- Hibernate die Zeilen als bestehend erkennt; Preise ab 10^10 passen nicht mehr und brechen ab.
+insert into item_new (basket_id, book_id, name, amount, price, version)
+select basket_id, id, name, amount, coalesce(price, 0), 0 from item where basket_id is not null;
+
+drop table item;
+
+alter table item_new rename to item;
@@ -0,0 +1,17 @@
+-- Laufende Summen und Version je Warenkorb; bestehende Warenkoerbe bekommen die Summen ihrer Artikel
+
+alter table basket add column version bigint;
+alter table basket add column total_costs numeric(38, 2) default 0 not null;
+alter table basket add column item_count integer default 0 not null;
+
+update basket set
+    version = 0,
+    total_costs = (select coalesce(sum(i.price * i.amount), 0) from item i where i.basket_id = basket.id),
+    item_count = (select coalesce(sum(i.amount), 0) from item i where i.basket_id = basket.id);
+
+-- Die Defaults dienten nur dem Anlegen der Spalten; neue Warenkoerbe setzen die Summen selbst
+alter table basket alter column total_costs drop default;
+alter table basket alter column item_count drop default;
+
+-- GET /baskets/user/{userID} bei jedem Login; je Benutzer hoechstens ein Warenkorb
+create unique index basket_user_id_idx on basket (user_id);
@@ -0,0 +1,11 @@
+-- Transaktionaler Outbox fuer die Warenkorb-Ereignisse, siehe BasketEventOutbox und BasketEventPublisher.
+-- Eine Zeile je Transaktion; veroeffentlichte Zeilen werden geloescht, die Tabelle bleibt also klein.
+
+create table basket_event_outbox (
+    id bigint generated by default as identity,
+    basket_id varchar(255) not null,
+    -- JSON-Liste der Ereignisse; ohne Laengenangabe, eine Sammelaenderung kann viele Zeilen haben
+    payload varchar not null,
+    created_at timestamp(6) with time zone not null,
+    constraint basket_event_outbox_pk primary key (id)
+);
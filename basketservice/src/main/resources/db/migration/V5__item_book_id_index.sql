@@ -0,0 +1,3 @@
+-- Aenderungen eines Buchs treffen dessen Artikel in allen Warenkoerben (BookDetailsRefresher);
+-- der Primaerschluessel (basket_id, book_id) hilft dabei nicht
+create index item_book_id_idx on item (book_id);
@@ -0,0 +1,136 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation.Type;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperationResult;
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import com.ribaso.basketservice.port.exception.UnknownBasketIDException;
+import com.ribaso.basketservice.port.exception.UnknownItemIDException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class BasketBulkOperationsTest {
+
+    @Autowired
+    private BasketService basketService;
+
+    @MockBean
+    private GetBookDetails getBookDetails;
+
+    private String basketId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(getBookDetails.getBookDetails(anyString())).thenAnswer(invocation -> book(invocation.getArgument(0)));
+        when(getBookDetails.getBookDetails(any(Collection.class))).thenAnswer(invocation -> {
+            Map<String, Book> books = new LinkedHashMap<>();
+            for (String id : (Collection<String>) invocation.getArgument(0)) {
+                if (!id.endsWith("-unknown")) {
+                    books.put(id, book(id));
+                }
+            }
+            return books;
+        });
+
+        basketId = "bulk-" + System.nanoTime();
+        basketService.createBasket(basketId);
+        basketService.addItem(basketId, basketId + "-a", 5);
+        clearInvocations(getBookDetails);
+    }
+
+    @Test
+    void applyItemOperations_ShouldApplyValidLinesAndReportInvalidOnes() {
+        List<BasketItemOperationResult> results = basketService.applyItemOperations(basketId, List.of(
+                new BasketItemOperation(Type.ADD, basketId + "-a", 2),
+                new BasketItemOperation(Type.ADD, basketId + "-b", 1),
+                new BasketItemOperation(Type.ADD, basketId + "-b", 3),
+                new BasketItemOperation(Type.REMOVE, basketId + "-c", 1),
+                new BasketItemOperation(Type.ADD, basketId + "-unknown", 1),
+                new BasketItemOperation(Type.SET, basketId + "-d", 4),
+                new BasketItemOperation(Type.REMOVE, basketId + "-a", 10)));
+
+        assertEquals(List.of(true, true, true, false, false, true, false),
+                results.stream().map(BasketItemOperationResult::isSuccess).toList());
+        assertEquals("Item not found", results.get(3).getError());
+        assertEquals("Book not found", results.get(4).getError());
+        assertEquals("Not enough items to remove", results.get(6).getError());
+
+        assertEquals(7, basketService.getItem(basketId, basketId + "-a").getAmount());
+        assertEquals(4, basketService.getItem(basketId, basketId + "-b").getAmount());
+        assertEquals(4, basketService.getItem(basketId, basketId + "-d").getAmount());
+    }
+
+    @Test
+    void applyItemOperations_ShouldLookUpNewBooksInOneCall() throws Exception {
+        basketService.applyItemOperations(basketId, List.of(
+                new BasketItemOperation(Type.ADD, basketId + "-a", 1),
+                new BasketItemOperation(Type.ADD, basketId + "-b", 1),
+                new BasketItemOperation(Type.SET, basketId + "-c", 2)));
+
+        verify(getBookDetails, times(1)).getBookDetails(Set.of(basketId + "-b", basketId + "-c"));
+        verify(getBookDetails, never()).getBookDetails(anyString());
+    }
+
+    @Test
+    void applyItemOperations_ShouldRemoveItem_WhenQuantityIsSetToZero() {
+        List<BasketItemOperationResult> results = basketService.applyItemOperations(basketId, List.of(
+                new BasketItemOperation(Type.SET, basketId + "-a", 0),
+                new BasketItemOperation(Type.ADD, basketId + "-a", 1)));
+
+        assertTrue(results.stream().allMatch(BasketItemOperationResult::isSuccess));
+        assertEquals(1, basketService.getItem(basketId, basketId + "-a").getAmount());
+
+        basketService.applyItemOperations(basketId, List.of(new BasketItemOperation(Type.SET, basketId + "-a", 0)));
+        assertThrows(UnknownItemIDException.class, () -> basketService.getItem(basketId, basketId + "-a"));
+    }
+
+    @Test
+    void applyItemOperations_ShouldApplyFollowingLinesToNewItemBeforeInserting() {
+        List<BasketItemOperationResult> results = basketService.applyItemOperations(basketId, List.of(
+                new BasketItemOperation(Type.ADD, basketId + "-b", 3),
+                new BasketItemOperation(Type.REMOVE, basketId + "-b", 5),
+                new BasketItemOperation(Type.REMOVE, basketId + "-b", 1),
+                new BasketItemOperation(Type.SET, basketId + "-c", 2),
+                new BasketItemOperation(Type.REMOVE, basketId + "-c", 2),
+                new BasketItemOperation(Type.REMOVE, basketId + "-c", 1)));
+
+        assertEquals(List.of(true, false, true, true, true, false),
+                results.stream().map(BasketItemOperationResult::isSuccess).toList());
+        assertEquals("Not enough items to remove", results.get(1).getError());
+        assertEquals("Item not found", results.get(5).getError());
+        assertEquals(2, basketService.getItem(basketId, basketId + "-b").getAmount());
+        assertThrows(UnknownItemIDException.class, () -> basketService.getItem(basketId, basketId + "-c"));
+        assertEquals(7, basketService.getBasketSummary(basketId).getItemCount());
+    }
+
+    @Test
+    void applyItemOperations_ShouldThrowException_WhenBasketDoesNotExist() {
+        assertThrows(UnknownBasketIDException.class, () -> basketService.applyItemOperations("bulk-missing",
+                List.of(new BasketItemOperation(Type.ADD, "book", 1))));
+    }
+
+    private static Book book(String id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Test Book");
+        book.setPrice("10.00");
+        return book;
+    }
+}
@@ -0,0 +1,226 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.service.impl.RetryingBasketService;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import com.ribaso.basketservice.port.exception.InvalidAmountException;
+import com.ribaso.basketservice.port.exception.UnknownItemIDException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Gleichzeitige Mengenaenderungen am selben Artikel duerfen keine Updates verlieren, und
+ * Konflikte zwischen gleichzeitigen Schreibern werden wiederholt statt gemeldet.
+ */
+// H2 wartet standardmaessig nur 1 s auf Zeilensperren; Hikari verwirft die Verbindung nach einem solchen Timeout
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:concurrency;LOCK_TIMEOUT=10000")
+class BasketConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    private static final int OPERATIONS_PER_THREAD = 50;
+
+    @Autowired
+    private BasketService basketService;
+
+    @Autowired
+    private RetryingBasketService retryingBasketService;
+
+    @Autowired
+    private BasketRepository basketRepository;
+
+    @MockBean
+    private GetBookDetails getBookDetails;
+
+    private String basketId;
+
+    private String itemId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(getBookDetails.getBookDetails(anyString())).thenAnswer(invocation -> book(invocation.getArgument(0)));
+        when(getBookDetails.getBookDetails(anyCollection())).thenAnswer(invocation -> {
+            Map<String, Book> books = new HashMap<>();
+            for (String id : invocation.<Collection<String>>getArgument(0)) {
+                books.put(id, book(id));
+            }
+            return books;
+        });
+
+        basketId = "concurrent-" + System.nanoTime();
+        itemId = basketId + "-book";
+        basketService.createBasket(basketId);
+        basketService.addItem(basketId, itemId, 1);
+    }
+
+    @Test
+    void concurrentAdds_ShouldNotLoseUpdates() throws Exception {
+        runConcurrently(() -> basketService.addItem(basketId, itemId, 1));
+
+        assertEquals(1 + THREADS * OPERATIONS_PER_THREAD, basketService.getItem(basketId, itemId).getAmount());
+    }
+
+    @Test
+    void concurrentFirstAdds_ShouldCreateOneItem() throws Exception {
+        // Jede Runde ein neues Buch, damit alle Threads gleichzeitig die erste Zeile anlegen wollen
+        for (int round = 0; round < 20; round++) {
+            String bookId = basketId + "-first-" + round;
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return basketService.addItem(basketId, bookId, 1);
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            List<Item> items = basketService.getBasket(basketId).getItems().stream()
+                    .filter(item -> item.getId().equals(bookId))
+                    .toList();
+            assertEquals(1, items.size());
+            assertEquals(THREADS, items.get(0).getAmount());
+        }
+        assertTrue(basketRepository.findTotalsDrift(List.of(basketId)).isEmpty());
+    }
+
+    @Test
+    void concurrentAddsAndRemoves_ShouldKeepQuantity() throws Exception {
+        basketService.addItem(basketId, itemId, THREADS * OPERATIONS_PER_THREAD);
+        AtomicInteger calls = new AtomicInteger();
+
+        runConcurrently(() -> calls.getAndIncrement() % 2 == 0
+                ? basketService.addItem(basketId, itemId, 3)
+                : basketService.removeItem(basketId, itemId, 1));
+
+        int adds = (THREADS * OPERATIONS_PER_THREAD + 1) / 2;
+        int removes = THREADS * OPERATIONS_PER_THREAD / 2;
+        int expectedAmount = 1 + THREADS * OPERATIONS_PER_THREAD + adds * 3 - removes;
+        assertEquals(expectedAmount, basketService.getItem(basketId, itemId).getAmount());
+        // die laufende Summe muss jede Aenderung genau einmal enthalten
+        assertEquals(0, new BigDecimal("10.00").multiply(BigDecimal.valueOf(expectedAmount))
+                .compareTo(basketService.getTotalCosts(basketId)));
+    }
+
+    @Test
+    void concurrentRemoves_ShouldNeverRemoveMoreThanAvailable() throws Exception {
+        basketService.addItem(basketId, itemId, 99);
+        AtomicInteger removed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(() -> {
+            try {
+                basketService.removeItem(basketId, itemId, 1);
+                removed.incrementAndGet();
+            } catch (InvalidAmountException | UnknownItemIDException e) {
+                rejected.incrementAndGet();
+            }
+            return true;
+        });
+
+        assertEquals(100, removed.get());
+        assertEquals(THREADS * OPERATIONS_PER_THREAD - 100, rejected.get());
+        assertThrows(UnknownItemIDException.class, () -> basketService.getItem(basketId, itemId));
+    }
+
+    @Test
+    void concurrentWritersOnOneBasket_ShouldKeepItemsAndTotalsConsistent() throws Exception {
+        AtomicInteger failed = new AtomicInteger();
+
+        // Wenige Artikel-IDs, damit gleichzeitige Einfuegungen und Aenderungen derselben Zeilen kollidieren
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String item = basketId + "-hot-" + random.nextInt(4);
+            try {
+                switch (random.nextInt(3)) {
+                    case 0 -> basketService.addItem(basketId, item, 1 + random.nextInt(3));
+                    case 1 -> basketService.removeItem(basketId, item, 1);
+                    default -> basketService.applyItemOperations(basketId, List.of(
+                            new BasketItemOperation(BasketItemOperation.Type.ADD, item, 2),
+                            new BasketItemOperation(BasketItemOperation.Type.REMOVE, basketId + "-hot-" + random.nextInt(4), 1)));
+                }
+            } catch (InvalidAmountException | UnknownItemIDException e) {
+                // erwartete fachliche Ablehnung, kein Konflikt
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                throw e;
+            }
+            return true;
+        });
+
+        assertEquals(0, failed.get());
+        Basket basket = basketService.getBasket(basketId);
+        int amount = basket.getItems().stream().mapToInt(Item::getAmount).sum();
+        assertEquals(amount, basket.getItemCount());
+        assertEquals(0, new BigDecimal("10.00").multiply(BigDecimal.valueOf(amount)).compareTo(basket.getTotalCosts()));
+        assertTrue(basketRepository.findTotalsDrift(List.of(basketId)).isEmpty());
+        assertEquals(0, retryingBasketService.getExhaustedCount());
+    }
+
+    private void runConcurrently(Callable<Boolean> operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        operation.call();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Book book(String id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Test Book");
+        book.setPrice("10.00");
+        return book;
+    }
+}
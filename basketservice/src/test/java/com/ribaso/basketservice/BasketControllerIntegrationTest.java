@@ -11,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
@@ -57,10 +58,15 @@ public class BasketControllerIntegrationTest {
         item.setAmount(2);
 
         basket.setItems(List.of(item));
+        basket.recalculateTotals();
 
-        when(basketRepository.findById("1")).thenReturn(Optional.of(basket));
+        when(basketRepository.findWithItemsById("1")).thenReturn(Optional.of(basket));
         when(basketRepository.existsById("1")).thenReturn(true);
-        when(itemRepository.save(any(Item.class))).thenReturn(item);
+        when(itemRepository.findByBasketIdAndBookId("1", "1")).thenReturn(Optional.of(item));
+        when(itemRepository.saveAndFlush(any(Item.class))).thenReturn(item);
+        when(itemRepository.incrementAmount("1", "1", 1)).thenReturn(1);
+        when(itemRepository.decrementAmount("1", "1", 1)).thenReturn(1);
+        when(basketRepository.findTotalCostsById("1")).thenReturn(Optional.of(new BigDecimal("20.00")));
     }
 
     @Test
@@ -72,7 +78,7 @@ public class BasketControllerIntegrationTest {
 
     @Test
     void getBasket_ShouldReturnNotFound_WhenBasketDoesNotExist() throws Exception {
-        when(basketRepository.findById("999")).thenReturn(Optional.empty());
+        when(basketRepository.findWithItemsById("999")).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/baskets/999"))
                 .andExpect(status().isNotFound());
@@ -102,6 +108,19 @@ public class BasketControllerIntegrationTest {
                 .andExpect(content().string("20.00"));
     }
 
+    @Test
+    void getTotalCosts_ShouldReturnTotalsForSeveralBaskets() throws Exception {
+        when(basketRepository.findTotalCostsByIdIn(List.of("1", "999")))
+                .thenReturn(List.of(BasketServiceTest.total("1", "20.00")));
+
+        mockMvc.perform(post("/baskets/total-costs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"1\", \"999\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.1").value(20.00))
+                .andExpect(jsonPath("$.999").doesNotExist());
+    }
+
     @Test
     void getBasketID_ShouldReturnBasketID() throws Exception {
         when(basketRepository.findByUserId("user1")).thenReturn(Optional.of(basket));
@@ -120,7 +139,7 @@ public class BasketControllerIntegrationTest {
 
     @Test
     void addItem_ShouldReturnNotFound_WhenBasketDoesNotExist() throws Exception {
-        when(basketRepository.findById("999")).thenReturn(Optional.empty());
+        when(basketRepository.findWithItemsById("999")).thenReturn(Optional.empty());
 
         mockMvc.perform(post("/baskets/999/items")
                 .param("itemID", "1")
@@ -130,7 +149,7 @@ public class BasketControllerIntegrationTest {
 
     @Test
     void removeItem_ShouldReturnNotFound_WhenBasketDoesNotExist() throws Exception {
-        when(basketRepository.findById("999")).thenReturn(Optional.empty());
+        when(basketRepository.findWithItemsById("999")).thenReturn(Optional.empty());
 
         mockMvc.perform(delete("/baskets/999/items/1")
                 .param("amount", "1"))
@@ -139,7 +158,7 @@ public class BasketControllerIntegrationTest {
 
     @Test
     void getTotalCosts_ShouldReturnNotFound_WhenBasketDoesNotExist() throws Exception {
-        when(basketRepository.findById("999")).thenReturn(Optional.empty());
+        when(basketRepository.findWithItemsById("999")).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/baskets/999/total-costs"))
                 .andExpect(status().isNotFound());
@@ -155,7 +174,7 @@ public class BasketControllerIntegrationTest {
 
     @Test
     void getItem_ShouldReturnNotFound_WhenBasketDoesNotExist() throws Exception {
-        when(basketRepository.findById("999")).thenReturn(Optional.empty());
+        when(basketRepository.findWithItemsById("999")).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/baskets/999/items/1"))
                 .andExpect(status().isNotFound());
@@ -163,7 +182,7 @@ public class BasketControllerIntegrationTest {
 
     @Test
     void getItem_ShouldReturnNotFound_WhenItemDoesNotExist() throws Exception {
-        when(basketRepository.findById("1")).thenReturn(Optional.of(basket));
+        when(basketRepository.findWithItemsById("1")).thenReturn(Optional.of(basket));
 
         mockMvc.perform(get("/baskets/1/items/999"))
                 .andExpect(status().isNotFound());
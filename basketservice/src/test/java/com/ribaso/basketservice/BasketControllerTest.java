@@ -2,25 +2,42 @@ package com.ribaso.basketservice;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperationResult;
+import com.ribaso.basketservice.core.domain.model.BasketSummary;
 import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.model.ItemSummary;
 import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.exception.BasketBusyException;
 import com.ribaso.basketservice.port.exception.BasketNotFoundException;
+import com.ribaso.basketservice.port.exception.UnknownBasketIDException;
 import com.ribaso.basketservice.port.user.advice.GlobalExceptionHandler;
 import com.ribaso.basketservice.port.user.controller.BasketController;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -42,7 +59,8 @@ class BasketControllerTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         mockMvc = MockMvcBuilders.standaloneSetup(basketController)
-                .setControllerAdvice(new GlobalExceptionHandler())
+                .setControllerAdvice(new GlobalExceptionHandler(new SimpleMeterRegistry()))
+                .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
                 .build();
 
         basket = new Basket();
@@ -88,6 +106,94 @@ class BasketControllerTest {
                 .andExpect(content().string(totalCosts.toString()));
     }
 
+    @Test
+    void getBasketSummary_ShouldReturnCountAndTotal() throws Exception {
+        when(basketService.getBasketSummary("1")).thenReturn(new BasketSummary("1", 3, new BigDecimal("30.00"), 4));
+
+        mockMvc.perform(get("/baskets/1/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.basketId").value("1"))
+                .andExpect(jsonPath("$.itemCount").value(3))
+                .andExpect(jsonPath("$.totalCosts").value(30.00))
+                .andExpect(jsonPath("$.items").doesNotExist())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void getBasketSummary_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+        when(basketService.getBasketSummary("1")).thenReturn(new BasketSummary("1", 3, new BigDecimal("30.00"), 4));
+
+        mockMvc.perform(get("/baskets/1/summary").header("If-None-Match", "\"3\", W/\"4\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getBasket_ShouldReturnETag() throws Exception {
+        when(basketService.getBasket("1")).thenReturn(basket);
+        when(basketService.getBasketVersion(basket)).thenReturn(5L);
+
+        mockMvc.perform(get("/baskets/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5\""));
+        verify(basketService, never()).getBasketVersion(anyString());
+    }
+
+    @Test
+    void getBasket_ShouldNotLoadBasket_WhenETagMatches() throws Exception {
+        when(basketService.getBasketVersion("1")).thenReturn(5L);
+
+        mockMvc.perform(get("/baskets/1").header("If-None-Match", "\"5\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"5\""));
+        verify(basketService, never()).getBasket(anyString());
+    }
+
+    @Test
+    void getBasket_ShouldReturnBasket_WhenETagIsOutdated() throws Exception {
+        when(basketService.getBasketVersion("1")).thenReturn(6L);
+        when(basketService.getBasket("1")).thenReturn(basket);
+        when(basketService.getBasketVersion(basket)).thenReturn(6L);
+
+        mockMvc.perform(get("/baskets/1").header("If-None-Match", "\"5\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"6\""))
+                .andExpect(jsonPath("$.id").value("1"));
+    }
+
+    @Test
+    void getBasketSummary_ShouldReturnNotFound_WhenBasketDoesNotExist() throws Exception {
+        when(basketService.getBasketSummary("1")).thenThrow(new UnknownBasketIDException("Basket not found"));
+
+        mockMvc.perform(get("/baskets/1/summary"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getItems_ShouldReturnRequestedPage() throws Exception {
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by("id"));
+        when(basketService.getBasketVersion("1")).thenReturn(2L);
+        when(basketService.getItems("1", pageRequest)).thenReturn(new PageImpl<>(
+                List.of(new ItemSummary("book-3", "Book 3", 1, new BigDecimal("10.00"))), pageRequest, 3));
+
+        mockMvc.perform(get("/baskets/1/items").param("page", "1").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value("book-3"))
+                .andExpect(jsonPath("$.page.totalElements").value(3))
+                .andExpect(jsonPath("$.page.totalPages").value(2))
+                .andExpect(header().string("ETag", "\"2\""));
+    }
+
+    @Test
+    void getItems_ShouldReturnNotModified_WhenETagMatches() throws Exception {
+        when(basketService.getBasketVersion("1")).thenReturn(2L);
+
+        mockMvc.perform(get("/baskets/1/items").header("If-None-Match", "\"2\""))
+                .andExpect(status().isNotModified());
+        verify(basketService, never()).getItems(anyString(), any());
+    }
+
     @Test
     void getBasketID_ShouldReturnBasketID() throws Exception {
         String userID = "1";
@@ -119,6 +225,45 @@ class BasketControllerTest {
                 .andExpect(content().string("true"));
     }
 
+    @Test
+    void addItemAsync_ShouldReturnTrue_WhenItemAdded() throws Exception {
+        when(basketService.addItemAsync("1", "1", 1)).thenReturn(CompletableFuture.completedFuture(true));
+
+        MvcResult result = mockMvc.perform(post("/baskets/1/items/async")
+                .param("itemID", "1")
+                .param("amount", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"));
+    }
+
+    @Test
+    void addItemAsync_ShouldReturnGatewayTimeout_WhenBookServiceTimesOut() throws Exception {
+        when(basketService.addItemAsync("1", "1", 1)).thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+
+        MvcResult result = mockMvc.perform(post("/baskets/1/items/async")
+                .param("itemID", "1")
+                .param("amount", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isGatewayTimeout());
+    }
+
+    @Test
+    void removeItem_ShouldReturnTooManyRequests_WhenBasketIsBusy() throws Exception {
+        when(basketService.removeItem("1", "1", 1)).thenThrow(new BasketBusyException("Too many pending changes for this basket, please retry"));
+
+        mockMvc.perform(delete("/baskets/1/items/1")
+                .param("amount", "1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
     @Test
     void removeItem_ShouldReturnTrue_WhenItemRemoved() throws Exception {
         when(basketService.removeItem("1", "1", 1)).thenReturn(true);
@@ -129,6 +274,24 @@ class BasketControllerTest {
                 .andExpect(content().string("true"));
     }
 
+    @Test
+    void applyItemOperations_ShouldReturnOneResultPerLine() throws Exception {
+        List<BasketItemOperation> operations = List.of(
+                new BasketItemOperation(BasketItemOperation.Type.ADD, "1", 2),
+                new BasketItemOperation(BasketItemOperation.Type.REMOVE, "2", 1));
+        when(basketService.applyItemOperations(eq("1"), eq(operations))).thenReturn(List.of(
+                BasketItemOperationResult.ok("1"),
+                BasketItemOperationResult.failed("2", "Item not found")));
+
+        mockMvc.perform(post("/baskets/1/items/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(operations)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[1].success").value(false))
+                .andExpect(jsonPath("$[1].error").value("Item not found"));
+    }
+
  @Test
 void createBasket_ShouldReturnBasket_WhenBasketCreated() throws Exception {
     when(basketService.createBasket(anyString())).thenReturn(basket);
@@ -0,0 +1,176 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.BasketEvent;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.model.OutboxEntry;
+import com.ribaso.basketservice.core.domain.service.impl.BasketEventOutbox;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.core.domain.service.interfaces.OutboxRepository;
+import com.ribaso.basketservice.port.basket.producer.BasketEventPublisher;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import com.ribaso.basketservice.port.exception.InvalidAmountException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Änderungen schreiben ihre Ereignisse in derselben Transaktion in den Outbox; der Publisher
+ * löscht sie erst nach der Bestätigung durch den Broker.
+ */
+@SpringBootTest(properties = "basket.events.publish-interval=0")
+class BasketEventOutboxTest {
+
+    @Autowired
+    private BasketService basketService;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private BasketEventOutbox outbox;
+
+    @Autowired
+    private BasketEventPublisher publisher;
+
+    @MockBean
+    private GetBookDetails getBookDetails;
+
+    @MockBean
+    private RabbitTemplate rabbitTemplate;
+
+    private final RabbitOperations operations = mock(RabbitOperations.class);
+
+    private String basketId;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(getBookDetails.getBookDetails(anyString())).thenAnswer(invocation -> book(invocation.getArgument(0)));
+        when(getBookDetails.getBookDetails(anyCollection())).thenAnswer(invocation -> {
+            Map<String, Book> books = new HashMap<>();
+            for (String id : invocation.<Collection<String>>getArgument(0)) {
+                books.put(id, book(id));
+            }
+            return books;
+        });
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+
+        basketId = "events-" + System.nanoTime();
+        basketService.createBasket(basketId);
+    }
+
+    @Test
+    void mutations_ShouldWriteEventsInCommitOrder() throws IOException {
+        basketService.addItem(basketId, "book-a", 2);
+        basketService.addItem(basketId, "book-a", 1);
+        basketService.applyItemOperations(basketId, List.of(
+                new BasketItemOperation(BasketItemOperation.Type.SET, "book-a", 1),
+                new BasketItemOperation(BasketItemOperation.Type.ADD, "book-b", 4),
+                new BasketItemOperation(BasketItemOperation.Type.REMOVE, "book-b", 1)));
+        basketService.removeItem(basketId, "book-a", 1);
+        basketService.removeBasket(basketId);
+
+        assertEquals(List.of(
+                new BasketEvent.ItemAdded(basketId, "book-a", 2),
+                new BasketEvent.ItemAdded(basketId, "book-a", 1),
+                new BasketEvent.ItemRemoved(basketId, "book-a", 2),
+                new BasketEvent.ItemAdded(basketId, "book-b", 3),
+                new BasketEvent.ItemRemoved(basketId, "book-a", 1),
+                new BasketEvent.BasketRemoved(basketId)), storedEvents());
+    }
+
+    @Test
+    void createBasket_ShouldReportRemovedItems_WhenExistingBasketIsCleared() throws IOException {
+        basketService.addItem(basketId, "book-a", 2);
+
+        basketService.createBasket(basketId);
+
+        List<BasketEvent> events = storedEvents();
+        assertEquals(new BasketEvent.ItemRemoved(basketId, "book-a", 2), events.get(events.size() - 1));
+    }
+
+    @Test
+    void failedChange_ShouldNotWriteEvents() {
+        basketService.applyItemOperations(basketId, List.of(
+                new BasketItemOperation(BasketItemOperation.Type.ADD, "book-a", 1),
+                new BasketItemOperation(BasketItemOperation.Type.REMOVE, "book-a", 5)));
+        assertThrows(InvalidAmountException.class, () -> basketService.removeItem(basketId, "book-a", 5));
+
+        // nur das ADD der Sammelaenderung, das abgelehnte REMOVE und das gescheiterte removeItem fehlen
+        assertEquals(List.of(new BasketEvent.ItemAdded(basketId, "book-a", 1)), storedEvents());
+    }
+
+    @Test
+    void publish_ShouldSendEventsAndDeleteThemAfterConfirm() throws IOException {
+        basketService.addItem(basketId, "book-a", 2);
+        basketService.removeBasket(basketId);
+
+        publisher.publish();
+
+        ArgumentCaptor<MessagePostProcessor> postProcessor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        verify(operations).convertAndSend(eq("basket-events"), eq("basket.item.added"),
+                eq(new BasketEvent.ItemAdded(basketId, "book-a", 2)), postProcessor.capture());
+        verify(operations).convertAndSend(eq("basket-events"), eq("basket.removed"),
+                eq(new BasketEvent.BasketRemoved(basketId)), any(MessagePostProcessor.class));
+        verify(operations, atLeastOnce()).waitForConfirmsOrDie(anyLong());
+        Message message = postProcessor.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+        assertTrue(message.getMessageProperties().getMessageId().endsWith("-0"));
+        assertTrue(storedEvents().isEmpty());
+    }
+
+    @Test
+    void publish_ShouldKeepEvents_WhenBrokerDoesNotConfirm() throws IOException {
+        basketService.addItem(basketId, "book-a", 2);
+        doThrow(new AmqpException("nack")).when(operations).waitForConfirmsOrDie(anyLong());
+        long failedBefore = publisher.getFailedBatchCount();
+
+        assertThrows(AmqpException.class, () -> publisher.publish());
+
+        assertEquals(List.of(new BasketEvent.ItemAdded(basketId, "book-a", 2)), storedEvents());
+        assertEquals(failedBefore + 1, publisher.getFailedBatchCount());
+    }
+
+    private List<BasketEvent> storedEvents() {
+        List<BasketEvent> events = new ArrayList<>();
+        for (OutboxEntry entry : outboxRepository.findAll(Sort.by("id"))) {
+            if (entry.getBasketId().equals(basketId)) {
+                events.addAll(outbox.read(entry));
+            }
+        }
+        return events;
+    }
+
+    private static Book book(String id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Test Book");
+        book.setPrice("10.00");
+        return book;
+    }
+}
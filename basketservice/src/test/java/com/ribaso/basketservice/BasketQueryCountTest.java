@@ -0,0 +1,171 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.BasketSummary;
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.model.ItemSummary;
+import com.ribaso.basketservice.core.domain.service.impl.BasketSnapshotCache;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Zählt die SQL-Statements pro Operation, damit N+1-Abfragen auffallen.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session.events.auto=com.ribaso.basketservice.JdbcRoundTrips",
+        // JdbcRoundTrips zaehlt alle Sessions, auch die des Publishers
+        "basket.events.publish-interval=0"})
+class BasketQueryCountTest {
+
+    @Autowired
+    private BasketService basketService;
+
+    @Autowired
+    private BasketSnapshotCache basketCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private GetBookDetails getBookDetails;
+
+    private Statistics statistics;
+
+    private String basketId;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        when(getBookDetails.getBookDetails(anyString())).thenAnswer(invocation -> book(invocation.getArgument(0)));
+        when(getBookDetails.getBookDetails(anyCollection())).thenAnswer(invocation -> {
+            Map<String, Book> books = new HashMap<>();
+            for (String id : invocation.<Collection<String>>getArgument(0)) {
+                books.put(id, book(id));
+            }
+            return books;
+        });
+
+        basketId = "count-" + System.nanoTime();
+        basketService.createBasket(basketId);
+        for (int i = 0; i < 5; i++) {
+            basketService.addItem(basketId, basketId + "-book-" + i, 2);
+        }
+        basketCache.invalidateAll();
+        statistics.clear();
+        JdbcRoundTrips.clear();
+    }
+
+    @Test
+    void getBasket_ShouldUseOneStatement() {
+        assertEquals(5, basketService.getBasket(basketId).getItems().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getTotalCosts_ShouldUseOneStatement() {
+        assertEquals(0, new BigDecimal("100.00").compareTo(basketService.getTotalCosts(basketId)));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getBasketSummary_ShouldUseOneStatement() {
+        BasketSummary summary = basketService.getBasketSummary(basketId);
+        assertEquals(10, summary.getItemCount());
+        assertEquals(0, new BigDecimal("100.00").compareTo(summary.getTotalCosts()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        // Projektion, es wird keine Entitaet geladen
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getItems_ShouldUseOneStatement_WhenPageHoldsAllItems() {
+        Page<ItemSummary> page = basketService.getItems(basketId, PageRequest.of(0, 20, Sort.by("id")));
+        assertEquals(5, page.getNumberOfElements());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getItems_ShouldAddCountQuery_WhenMorePagesFollow() {
+        Page<ItemSummary> page = basketService.getItems(basketId, PageRequest.of(1, 2, Sort.by("id")));
+        assertEquals(basketId + "-book-2", page.getContent().get(0).getId());
+        assertEquals(5, page.getTotalElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getItem_ShouldUseOneStatement() {
+        basketService.getItem(basketId, basketId + "-book-0");
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void addItem_ShouldUseThreeStatements_WhenItemExists() throws IOException {
+        basketService.addItem(basketId, basketId + "-book-0", 1);
+        // bedingtes Update + Fortschreiben der Summen + Outbox, kein Laden des Warenkorbs
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void addItem_ShouldInsertWithoutSelect_WhenItemIsNew() throws IOException {
+        basketService.addItem(basketId, basketId + "-book-new", 1);
+        // bedingtes Update ohne Treffer + Existenz des Warenkorbs + INSERT + Summen + Outbox, kein Merge-SELECT
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void applyItemOperations_ShouldInsertNewItemsInOneBatch() {
+        List<BasketItemOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            operations.add(new BasketItemOperation(BasketItemOperation.Type.ADD, basketId + "-bulk-" + i, 1));
+        }
+        basketService.applyItemOperations(basketId, operations);
+        // Existenz + vorhandene IDs, Sperre + Summen + eine Outbox-Zeile fuer alle Ereignisse; die INSERTs
+        // als ein Batch, kein Update fuer neue Artikel
+        assertEquals(5, JdbcRoundTrips.getStatementCount());
+        assertEquals(1, JdbcRoundTrips.getBatchCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(20, basketService.getBasketSummary(basketId).getItemCount());
+    }
+
+    @Test
+    void removeItem_ShouldUseFourStatements() {
+        basketService.removeItem(basketId, basketId + "-book-0", 1);
+        // bedingtes Update + Fortschreiben der Summen + Loeschen bei Menge 0 + Outbox
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    private static Book book(String id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Test Book");
+        book.setPrice("10.00");
+        return book;
+    }
+}
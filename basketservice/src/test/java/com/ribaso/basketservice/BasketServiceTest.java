@@ -1,9 +1,14 @@
 package com.ribaso.basketservice;
 
 import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketEvent;
+import com.ribaso.basketservice.core.domain.model.BasketSummary;
+import com.ribaso.basketservice.core.domain.model.BasketTotal;
 import com.ribaso.basketservice.core.domain.model.Book;
 import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.service.impl.BasketEventOutbox;
 import com.ribaso.basketservice.core.domain.service.impl.BasketServiceImpl;
+import com.ribaso.basketservice.core.domain.service.impl.BasketSnapshotCache;
 import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
 import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
 import com.ribaso.basketservice.core.domain.service.interfaces.ItemRepository;
@@ -16,19 +21,23 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageBuilder;
 import org.springframework.amqp.core.MessageProperties;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -51,6 +60,12 @@ class BasketServiceTest {
     @Mock
     private GetBookDetails getBookDetails; 
 
+    @Mock
+    private BasketEventOutbox eventOutbox;
+
+    @Spy
+    private BasketSnapshotCache basketCache = new BasketSnapshotCache(100, Duration.ofMinutes(1));
+
     @InjectMocks
     private BasketServiceImpl basketServiceImpl;
 
@@ -81,21 +96,47 @@ class BasketServiceTest {
         book.setPrice(("10.00"));
 
         basket.setItems(Arrays.asList(item));
+        basket.recalculateTotals();
 
     }
 
     @Test
     void getBasket_ShouldReturnBasket_WhenBasketExists() {
-        when(basketRepository.findById("1")).thenReturn(Optional.of(basket));
+        when(basketRepository.findWithItemsById("1")).thenReturn(Optional.of(basket));
 
         Basket result = basketService.getBasket("1");
         assertNotNull(result);
         assertEquals("1", result.getId());
     }
 
+    @Test
+    void getBasket_ShouldServeSnapshotFromCache_WhenCalledAgain() {
+        when(basketRepository.findWithItemsById("1")).thenReturn(Optional.of(basket));
+
+        basketService.getBasket("1");
+        basketService.getTotalCosts("1");
+        basketService.getItem("1", "1");
+
+        verify(basketRepository, times(1)).findWithItemsById("1");
+        assertEquals(2, basketCache.stats().hitCount());
+    }
+
+    @Test
+    void addItem_ShouldInvalidateCachedSnapshot() throws IOException {
+        when(basketRepository.findWithItemsById("1")).thenReturn(Optional.of(basket));
+        when(itemRepository.incrementAmount("1", "1", 3)).thenReturn(1);
+
+        basketService.getBasket("1");
+        basketService.addItem("1", "1", 3);
+        basketService.getBasket("1");
+
+        verify(basketCache).invalidate("1");
+        verify(basketRepository, times(2)).findWithItemsById("1");
+    }
+
     @Test
     void getBasket_ShouldThrowException_WhenBasketDoesNotExist() {
-        when(basketRepository.findById("1")).thenReturn(Optional.empty());
+        when(basketRepository.findWithItemsById("1")).thenReturn(Optional.empty());
 
         assertThrows(UnknownBasketIDException.class, () -> basketService.getBasket("1"));
     }
@@ -109,14 +150,107 @@ class BasketServiceTest {
         assertTrue(result);
 
         verify(basketRepository, times(1)).deleteById("1");
+        verify(eventOutbox).append(new BasketEvent.BasketRemoved("1"));
     }
 
     @Test
     void getTotalCosts_ShouldReturnTotalCostOfItems() {
-        when(basketRepository.findById("1")).thenReturn(Optional.of(basket));
+        when(basketRepository.findTotalCostsById("1")).thenReturn(Optional.of(new BigDecimal("20.00")));
 
         BigDecimal totalCosts = basketService.getTotalCosts("1");
         assertEquals(new BigDecimal("20.00"), totalCosts);
+        verify(basketRepository, never()).findWithItemsById(anyString());
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void getTotalCosts_ShouldUseCachedSnapshot_WhenPresent() {
+        when(basketRepository.findWithItemsById("1")).thenReturn(Optional.of(basket));
+        basketService.getBasket("1");
+
+        assertEquals(new BigDecimal("20.00"), basketService.getTotalCosts("1"));
+        verify(basketRepository, never()).findTotalCostsById(anyString());
+    }
+
+    @Test
+    void getTotalCosts_ShouldThrowException_WhenBasketDoesNotExist() {
+        when(basketRepository.findTotalCostsById("1")).thenReturn(Optional.empty());
+
+        assertThrows(UnknownBasketIDException.class, () -> basketService.getTotalCosts("1"));
+    }
+
+    @Test
+    void getTotalCosts_ShouldReturnTotalsForSeveralBaskets() {
+        when(basketRepository.findTotalCostsByIdIn(List.of("1", "2", "3")))
+                .thenReturn(List.of(total("1", "20.00"), total("3", "0")));
+
+        Map<String, BigDecimal> totals = basketService.getTotalCosts(List.of("1", "2", "3", "1"));
+
+        assertEquals(Map.of("1", new BigDecimal("20.00"), "3", BigDecimal.ZERO), totals);
+    }
+
+    @Test
+    void getBasketSummary_ShouldReadProjection_WhenNotCached() {
+        when(basketRepository.findSummaryById("1")).thenReturn(Optional.of(new BasketSummary("1", 2, new BigDecimal("20.00"), 0)));
+
+        BasketSummary summary = basketService.getBasketSummary("1");
+
+        assertEquals(2, summary.getItemCount());
+        verify(basketRepository, never()).findWithItemsById(anyString());
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void getBasketSummary_ShouldUseCachedSnapshot_WhenPresent() {
+        basket.setVersion(4L);
+        when(basketRepository.findWithItemsById("1")).thenReturn(Optional.of(basket));
+        basketService.getBasket("1");
+
+        assertEquals(new BasketSummary("1", 2, new BigDecimal("20.00"), 4), basketService.getBasketSummary("1"));
+        verify(basketRepository, never()).findSummaryById(anyString());
+    }
+
+    @Test
+    void getBasketVersion_ShouldReadVersionOnly_WhenNotCached() {
+        when(basketRepository.findVersionById("1")).thenReturn(Optional.of(7L));
+
+        assertEquals(7, basketService.getBasketVersion("1"));
+        verify(basketRepository, never()).findWithItemsById(anyString());
+    }
+
+    @Test
+    void getBasketVersion_ShouldThrowException_WhenBasketDoesNotExist() {
+        when(basketRepository.findVersionById("1")).thenReturn(Optional.empty());
+
+        assertThrows(UnknownBasketIDException.class, () -> basketService.getBasketVersion("1"));
+    }
+
+    @Test
+    void getBasketSummary_ShouldThrowException_WhenBasketDoesNotExist() {
+        when(basketRepository.findSummaryById("1")).thenReturn(Optional.empty());
+
+        assertThrows(UnknownBasketIDException.class, () -> basketService.getBasketSummary("1"));
+    }
+
+    @Test
+    void getItems_ShouldThrowException_WhenBasketDoesNotExist() {
+        when(itemRepository.findSummariesByBasketId("1", PageRequest.of(0, 20))).thenReturn(Page.empty());
+
+        assertThrows(UnknownBasketIDException.class, () -> basketService.getItems("1", PageRequest.of(0, 20)));
+    }
+
+    static BasketTotal total(String basketId, String totalCosts) {
+        return new BasketTotal() {
+            @Override
+            public String getBasketId() {
+                return basketId;
+            }
+
+            @Override
+            public BigDecimal getTotalCosts() {
+                return new BigDecimal(totalCosts);
+            }
+        };
     }
 
     @Test
@@ -136,20 +270,36 @@ class BasketServiceTest {
 
     @Test
     void getItem_ShouldReturnItem_WhenItemExists() {
-        when(basketRepository.findById("1")).thenReturn(Optional.of(basket));
+        when(itemRepository.findByBasketIdAndBookId("1", "1")).thenReturn(Optional.of(item));
 
         Item result = basketService.getItem("1", "1");
         assertNotNull(result);
         assertEquals("1", result.getId());
+        verify(basketRepository, never()).findWithItemsById(anyString());
+    }
+
+    @Test
+    void getItem_ShouldUseCachedBasket_WhenPresent() {
+        when(basketRepository.findWithItemsById("1")).thenReturn(Optional.of(basket));
+        basketService.getBasket("1");
+
+        assertEquals("1", basketService.getItem("1", "1").getId());
+        verify(itemRepository, never()).findByBasketIdAndBookId(anyString(), anyString());
     }
 
     @Test
     void getItem_ShouldThrowException_WhenItemDoesNotExist() {
-        when(basketRepository.findById("1")).thenReturn(Optional.of(basket));
+        when(itemRepository.findByBasketIdAndBookId("1", "2")).thenReturn(Optional.empty());
+        when(basketRepository.existsById("1")).thenReturn(true);
 
         assertThrows(UnknownItemIDException.class, () -> basketService.getItem("1", "2"));
     }
 
+    @Test
+    void getItem_ShouldThrowException_WhenBasketDoesNotExist() {
+        assertThrows(UnknownBasketIDException.class, () -> basketService.getItem("missing", "1"));
+    }
+
     @Test
     void addItem_ShouldAddNewItem_WhenItemDoesNotExist() throws Exception {
         book = new Book();
@@ -159,8 +309,8 @@ class BasketServiceTest {
 
         basket.setItems(Arrays.asList(item));
 
-        when(basketRepository.findById("1")).thenReturn(Optional.of(basket));
-        when(itemRepository.save(any(Item.class))).thenReturn(item);
+        when(basketRepository.existsById("1")).thenReturn(true);
+        when(itemRepository.saveAndFlush(any(Item.class))).thenReturn(item);
         when(getBookDetails.getBookDetails(anyString())).thenReturn(book);
 
         // Jackson2JsonMessageConverter im Test verwenden
@@ -177,18 +327,27 @@ class BasketServiceTest {
 
         boolean result = basketService.addItem("1", "2", 3);
         assertTrue(result);
-        verify(itemRepository, times(1)).save(any(Item.class));
+        verify(itemRepository, times(1)).saveAndFlush(any(Item.class));
+        verify(basketRepository).addToTotals("1", new BigDecimal("30.00"), 3);
+        verify(eventOutbox).append(new BasketEvent.ItemAdded("1", "2", 3));
     }
 
     @Test
     void addItem_ShouldIncreaseItemAmount_WhenItemExists() throws IOException {
-        when(basketRepository.findById("1")).thenReturn(Optional.of(basket));
-        when(itemRepository.save(any(Item.class))).thenReturn(item);
+        when(itemRepository.incrementAmount("1", "1", 3)).thenReturn(1);
 
         boolean result = basketService.addItem("1", "1", 3);
         assertTrue(result);
-        assertEquals(5, item.getAmount());
-        verify(itemRepository, times(1)).save(item);
+        verify(itemRepository, never()).saveAndFlush(any(Item.class));
+        verify(getBookDetails, never()).getBookDetails(anyString());
+        verify(basketRepository).addItemToTotals("1", "1", 3);
+        verify(eventOutbox).append(new BasketEvent.ItemAdded("1", "1", 3));
+    }
+
+    @Test
+    void addItem_ShouldThrowException_WhenBasketDoesNotExist() {
+        assertThrows(UnknownBasketIDException.class, () -> basketService.addItem("1", "1", 3));
+        verify(itemRepository, never()).saveAndFlush(any(Item.class));
     }
 
     @Test
@@ -198,39 +357,33 @@ class BasketServiceTest {
 
     @Test
     void removeItem_ShouldDecreaseItemAmount_WhenItemExists() {
-        when(basketRepository.findById("1")).thenReturn(Optional.of(basket));
-        when(itemRepository.save(any(Item.class))).thenReturn(item);
+        when(itemRepository.decrementAmount("1", "1", 1)).thenReturn(1);
 
         boolean result = basketService.removeItem("1", "1", 1);
         assertTrue(result);
-        assertEquals(1, item.getAmount());
-        verify(itemRepository, times(1)).save(item);
+        verify(itemRepository, times(1)).decrementAmount("1", "1", 1);
+        verify(basketRepository, times(1)).addItemToTotals("1", "1", -1);
+        verify(itemRepository, times(1)).deleteIfEmpty("1", "1");
+        verify(eventOutbox).append(new BasketEvent.ItemRemoved("1", "1", 1));
     }
 
     @Test
-void removeItem_ShouldDeleteItem_WhenAmountIsZero() {
-    // Mock basket and items
-    Basket basket = new Basket();
-    basket.setId("1");
-
-    Item item = new Item();
-    item.setId("1");
-    item.setAmount(2);
-    basket.setItems(new ArrayList<>(List.of(item))); // Use ArrayList to ensure it's modifiable
-
-    // Mock repository behavior
-    when(basketRepository.findById("1")).thenReturn(Optional.of(basket));
-    doNothing().when(itemRepository).delete(item);
-    when(basketRepository.save(any(Basket.class))).thenReturn(basket);
-
-    // Call the service method
-    boolean result = basketService.removeItem("1", "1", 2);
-
-    // Verify the result and interactions
-    assertTrue(result);
-    verify(itemRepository, times(1)).delete(item);
-    verify(basketRepository, times(1)).save(basket);
-}
+    void removeItem_ShouldThrowException_WhenItemDoesNotExist() {
+        when(basketRepository.existsById("1")).thenReturn(true);
+
+        assertThrows(UnknownItemIDException.class, () -> basketService.removeItem("1", "2", 1));
+        verify(itemRepository, never()).deleteIfEmpty(anyString(), anyString());
+        verifyNoInteractions(eventOutbox);
+    }
+
+    @Test
+    void removeItem_ShouldThrowException_WhenNotEnoughItems() {
+        when(basketRepository.existsById("1")).thenReturn(true);
+        when(itemRepository.existsByIdAndBasketId("1", "1")).thenReturn(true);
+
+        assertThrows(InvalidAmountException.class, () -> basketService.removeItem("1", "1", 5));
+        verify(itemRepository, never()).deleteIfEmpty(anyString(), anyString());
+    }
 
     @Test
     void removeItem_ShouldThrowException_WhenAmountIsInvalid() {
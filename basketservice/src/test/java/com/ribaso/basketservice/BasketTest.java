@@ -0,0 +1,61 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.Item;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BasketTest {
+
+    @Test
+    void findItem_ShouldFollowAddAndRemove() {
+        Basket basket = new Basket();
+        Item first = item("book-1");
+        basket.addItem(first);
+        assertSame(first, basket.findItem("book-1"));
+        assertSame(basket, first.getBasket());
+
+        Item second = item("book-2");
+        basket.addItem(second);
+        basket.removeItem(first);
+
+        assertNull(basket.findItem("book-1"));
+        assertSame(second, basket.findItem("book-2"));
+    }
+
+    @Test
+    void findItem_ShouldSeeItemsAddedToTheListDirectly() {
+        Basket basket = new Basket();
+        assertNull(basket.findItem("book-1"));
+
+        Item item = item("book-1");
+        basket.getItems().add(item);
+
+        assertSame(item, basket.findItem("book-1"));
+    }
+
+    @Test
+    void copy_ShouldIndexCopiedItems() {
+        Basket basket = new Basket();
+        basket.setId("basket");
+        basket.addItem(item("book-1"));
+
+        Basket copy = basket.copy();
+        basket.clearItems();
+
+        assertNotNull(copy.findItem("book-1"));
+        assertSame(copy, copy.findItem("book-1").getBasket());
+        assertNull(basket.findItem("book-1"));
+    }
+
+    private static Item item(String bookId) {
+        Item item = new Item();
+        item.setId(bookId);
+        item.setAmount(1);
+        item.setPrice(new BigDecimal("10.00"));
+        return item;
+    }
+}
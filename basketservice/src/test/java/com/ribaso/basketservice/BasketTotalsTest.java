@@ -0,0 +1,139 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.service.impl.BasketSnapshotCache;
+import com.ribaso.basketservice.core.domain.service.impl.BasketTotalsConsistencyCheck;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Gespeicherte Summen des Warenkorbs gegen die Artikel auf H2.
+ */
+@SpringBootTest(properties = {
+        "basket.totals-check.interval=0",
+        "basket.totals-check.batch-size=2"
+})
+class BasketTotalsTest {
+
+    @Autowired
+    private BasketService basketService;
+
+    @Autowired
+    private BasketRepository basketRepository;
+
+    @Autowired
+    private BasketSnapshotCache basketCache;
+
+    @Autowired
+    private BasketTotalsConsistencyCheck totalsCheck;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private GetBookDetails getBookDetails;
+
+    private String basketId;
+
+    // Dieselben Buecher in jedem Warenkorb, der Schluessel der Artikel enthaelt den Warenkorb
+    private final String bookA = "book-a";
+
+    private final String bookB = "book-b";
+
+    @BeforeEach
+    void setUp() {
+        when(getBookDetails.getBookDetails(anyString())).thenAnswer(invocation -> book(invocation.getArgument(0)));
+        when(getBookDetails.getBookDetails(anyCollection())).thenAnswer(invocation -> {
+            Map<String, Book> books = new HashMap<>();
+            for (String id : invocation.<Collection<String>>getArgument(0)) {
+                books.put(id, book(id));
+            }
+            return books;
+        });
+
+        basketId = "totals-" + System.nanoTime();
+        basketService.createBasket(basketId);
+    }
+
+    @Test
+    void addAndRemove_ShouldMaintainStoredTotals() throws Exception {
+        basketService.addItem(basketId, bookA, 2);
+        basketService.addItem(basketId, bookB, 1);
+        basketService.addItem(basketId, bookA, 1);
+        basketService.removeItem(basketId, bookB, 1);
+
+        assertStoredTotals("30.00", 3);
+    }
+
+    @Test
+    void applyItemOperations_ShouldMaintainStoredTotals() throws Exception {
+        basketService.addItem(basketId, bookA, 2);
+
+        basketService.applyItemOperations(basketId, List.of(
+                new BasketItemOperation(BasketItemOperation.Type.ADD, bookB, 4),
+                new BasketItemOperation(BasketItemOperation.Type.SET, bookA, 1),
+                new BasketItemOperation(BasketItemOperation.Type.REMOVE, bookB, 1)));
+
+        assertStoredTotals("40.00", 4);
+    }
+
+    @Test
+    void itemChanges_ShouldBumpVersion() throws Exception {
+        long created = basketService.getBasketVersion(basketId);
+        basketService.addItem(basketId, bookA, 2);
+        basketService.addItem(basketId, bookA, 1);
+        basketService.removeItem(basketId, bookA, 1);
+        basketService.applyItemOperations(basketId, List.of(
+                new BasketItemOperation(BasketItemOperation.Type.SET, bookA, 5)));
+
+        basketCache.invalidate(basketId);
+        assertEquals(created + 4, basketService.getBasketVersion(basketId));
+        assertEquals(created + 4, basketService.getBasket(basketId).getVersion());
+    }
+
+    @Test
+    void check_ShouldReportAndRepairDrift() throws Exception {
+        basketService.addItem(basketId, bookA, 2);
+        jdbcTemplate.update("update basket set total_costs = 99, item_count = 7 where id = ?", basketId);
+
+        assertTrue(totalsCheck.check() >= 1);
+        assertStoredTotals("20.00", 2);
+
+        long drift = totalsCheck.getDriftCount();
+        assertEquals(0, totalsCheck.check());
+        assertEquals(drift, totalsCheck.getDriftCount());
+    }
+
+    private void assertStoredTotals(String totalCosts, int itemCount) {
+        basketCache.invalidate(basketId);
+        assertEquals(0, new BigDecimal(totalCosts).compareTo(basketService.getTotalCosts(basketId)));
+        assertEquals(itemCount, basketRepository.findById(basketId).orElseThrow().getItemCount());
+    }
+
+    private static Book book(String id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Test Book");
+        book.setPrice("10.00");
+        return book;
+    }
+}
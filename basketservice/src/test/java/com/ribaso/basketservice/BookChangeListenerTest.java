@@ -0,0 +1,68 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.service.impl.BookDetailsRefresher;
+import com.ribaso.basketservice.port.basket.consumer.BookChangeListener;
+import com.ribaso.basketservice.port.basket.producer.BookDetailsCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookChangeListenerTest {
+
+    private final BookDetailsCache bookDetailsCache = new BookDetailsCache(100, Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+    private final BookDetailsRefresher refresher = mock(BookDetailsRefresher.class);
+
+    private BookChangeListener listener;
+
+    @BeforeEach
+    void setUp() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("refresher", refresher);
+        ObjectProvider<BookDetailsRefresher> provider = beanFactory.getBeanProvider(BookDetailsRefresher.class);
+        listener = new BookChangeListener(bookDetailsCache, provider);
+    }
+
+    @Test
+    void onBookChanges_ShouldRefreshCacheAndItemsWithLatestChangePerBook() {
+        listener.onBookChanges(List.of(book("1", "9.99"), book("2", "5.00"), book("1", "11.99")));
+
+        assertEquals("11.99", bookDetailsCache.get("1", id -> fail("not cached")).getPrice());
+        assertEquals("5.00", bookDetailsCache.get("2", id -> fail("not cached")).getPrice());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Book>> books = ArgumentCaptor.forClass(Collection.class);
+        verify(refresher).refresh(books.capture());
+        List<String> prices = new ArrayList<>();
+        books.getValue().forEach(book -> prices.add(book.getPrice()));
+        assertEquals(List.of("11.99", "5.00"), prices);
+    }
+
+    @Test
+    void onBookChanges_ShouldOnlyRefreshCache_WithoutJpaStorage() {
+        listener = new BookChangeListener(bookDetailsCache, new StaticListableBeanFactory().getBeanProvider(BookDetailsRefresher.class));
+
+        listener.onBookChanges(List.of(book("1", "9.99")));
+
+        assertEquals("9.99", bookDetailsCache.get("1", id -> fail("not cached")).getPrice());
+        verifyNoInteractions(refresher);
+    }
+
+    private static Book book(String id, String price) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Title " + id);
+        book.setPrice(price);
+        return book;
+    }
+}
@@ -0,0 +1,116 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.port.basket.producer.BookDetailsBatcher;
+import com.ribaso.basketservice.port.exception.UnknownItemIDException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookDetailsBatcherTest {
+
+    // Lokaler Ersatz fuer den BookService: beantwortet Sammelanfragen aus einem festen Katalog
+    private final Map<String, Book> catalog = Map.of(
+            "1", book("1", "First"),
+            "2", book("2", "Second"),
+            "3", book("3", "Third"));
+
+    private final List<List<String>> receivedBatches = Collections.synchronizedList(new ArrayList<>());
+
+    private BookDetailsBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    private CompletableFuture<List<Book>> respond(List<String> bookIds) {
+        receivedBatches.add(bookIds);
+        return CompletableFuture.supplyAsync(() -> bookIds.stream()
+                .filter(catalog::containsKey)
+                .map(catalog::get)
+                .toList());
+    }
+
+    @Test
+    void submit_ShouldSendOneBatch_WhenRequestedWithinWindow() throws Exception {
+        batcher = new BookDetailsBatcher(this::respond, Duration.ofMillis(50), 10);
+
+        CompletableFuture<Book> first = batcher.submit("1");
+        CompletableFuture<Book> second = batcher.submit("2");
+        CompletableFuture<Book> third = batcher.submit("3");
+
+        assertEquals("First", first.get(5, TimeUnit.SECONDS).getTitle());
+        assertEquals("Second", second.get(5, TimeUnit.SECONDS).getTitle());
+        assertEquals("Third", third.get(5, TimeUnit.SECONDS).getTitle());
+        assertEquals(List.of(List.of("1", "2", "3")), receivedBatches);
+        assertEquals(1, batcher.getBatchesSent());
+    }
+
+    @Test
+    void submit_ShouldSendImmediately_WhenMaxBatchSizeReached() throws Exception {
+        batcher = new BookDetailsBatcher(this::respond, Duration.ofMinutes(1), 2);
+
+        CompletableFuture<Book> first = batcher.submit("1");
+        CompletableFuture<Book> second = batcher.submit("2");
+
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, receivedBatches.size());
+    }
+
+    @Test
+    void submit_ShouldDeduplicateIdsWithinBatch() throws Exception {
+        batcher = new BookDetailsBatcher(this::respond, Duration.ofMillis(20), 10);
+
+        CompletableFuture<Book> first = batcher.submit("1");
+        CompletableFuture<Book> second = batcher.submit("1");
+
+        assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of("1")), receivedBatches);
+    }
+
+    @Test
+    void submit_ShouldFailOnlyUnknownIds() throws Exception {
+        batcher = new BookDetailsBatcher(this::respond, Duration.ofMillis(20), 10);
+
+        CompletableFuture<Book> known = batcher.submit("1");
+        CompletableFuture<Book> unknown = batcher.submit("999");
+
+        assertNotNull(known.get(5, TimeUnit.SECONDS));
+        CompletionException e = assertThrows(CompletionException.class, unknown::join);
+        assertInstanceOf(UnknownItemIDException.class, e.getCause());
+    }
+
+    @Test
+    void submit_ShouldFailWholeBatch_WhenRequestFails() {
+        batcher = new BookDetailsBatcher(ids -> CompletableFuture.failedFuture(new IllegalStateException("broker down")),
+                Duration.ofMillis(20), 10);
+
+        CompletableFuture<Book> first = batcher.submit("1");
+        CompletableFuture<Book> second = batcher.submit("2");
+
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+    }
+
+    private static Book book(String id, String title) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setPrice("10.00");
+        return book;
+    }
+}
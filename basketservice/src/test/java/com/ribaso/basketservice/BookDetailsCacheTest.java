@@ -0,0 +1,68 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.port.basket.producer.BookDetailsCache;
+import com.ribaso.basketservice.port.exception.UnknownItemIDException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookDetailsCacheTest {
+
+    private BookDetailsCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BookDetailsCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+        loads = new AtomicInteger();
+    }
+
+    private Function<String, Book> loader(Book book) {
+        return id -> {
+            loads.incrementAndGet();
+            if (book == null) {
+                throw new UnknownItemIDException("Book not found for ID: " + id);
+            }
+            return book;
+        };
+    }
+
+    @Test
+    void get_ShouldLoadOnlyOnce_WhenBookIsCached() {
+        Book book = new Book();
+        book.setId("1");
+
+        assertSame(book, cache.get("1", loader(book)));
+        assertSame(book, cache.get("1", loader(book)));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void get_ShouldCacheUnknownBooks() {
+        assertThrows(UnknownItemIDException.class, () -> cache.get("2", loader(null)));
+        assertThrows(UnknownItemIDException.class, () -> cache.get("2", loader(null)));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidate_ShouldForceReload() {
+        Book book = new Book();
+        book.setId("1");
+
+        cache.get("1", loader(book));
+        cache.invalidate("1");
+        cache.get("1", loader(book));
+
+        assertEquals(2, loads.get());
+    }
+}
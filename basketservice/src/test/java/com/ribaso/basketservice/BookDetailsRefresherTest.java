@@ -0,0 +1,114 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.service.impl.BookDetailsRefresher;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Geänderte Bücher aktualisieren die Artikel aller Warenkörbe mit einem UPDATE und die
+ * Summen der betroffenen Warenkörbe mit einem weiteren.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session.events.auto=com.ribaso.basketservice.JdbcRoundTrips",
+        "basket.events.publish-interval=0"})
+class BookDetailsRefresherTest {
+
+    @Autowired
+    private BookDetailsRefresher refresher;
+
+    @Autowired
+    private BasketService basketService;
+
+    @Autowired
+    private BasketRepository basketRepository;
+
+    @MockBean
+    private GetBookDetails getBookDetails;
+
+    private String prefix;
+
+    private String bookA;
+
+    private String bookB;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(getBookDetails.getBookDetails(anyString())).thenAnswer(invocation -> book(invocation.getArgument(0), "Old title", "10.00"));
+        prefix = "refresh-" + System.nanoTime();
+        bookA = prefix + "-book-a";
+        bookB = prefix + "-book-b";
+        basketService.createBasket(prefix + "-1");
+        basketService.createBasket(prefix + "-2");
+        basketService.addItem(prefix + "-1", bookA, 2);
+        basketService.addItem(prefix + "-1", bookB, 1);
+        basketService.addItem(prefix + "-2", bookA, 3);
+    }
+
+    @Test
+    void refresh_ShouldUpdateItemsAndTotalsOfAllBaskets() {
+        // Snapshot cachen, er muss danach neu geladen werden
+        basketService.getBasket(prefix + "-1");
+        JdbcRoundTrips.clear();
+
+        int updated = refresher.refresh(List.of(book(bookA, "New title", "12.50")));
+
+        assertEquals(2, updated);
+        // UPDATE der Artikel, Sperre der Warenkoerbe, Neuberechnung der Summen
+        assertEquals(3, JdbcRoundTrips.getStatementCount());
+        Basket first = basketService.getBasket(prefix + "-1");
+        assertEquals("New title", item(first, bookA).getName());
+        assertEquals(0, new BigDecimal("12.50").compareTo(item(first, bookA).getPrice()));
+        assertEquals("Old title", item(first, bookB).getName());
+        assertEquals(0, new BigDecimal("35.00").compareTo(first.getTotalCosts()));
+        assertEquals(0, new BigDecimal("37.50").compareTo(basketService.getTotalCosts(prefix + "-2")));
+        assertTrue(basketRepository.findTotalsDrift(List.of(prefix + "-1", prefix + "-2")).isEmpty());
+    }
+
+    @Test
+    void refresh_ShouldKeepStoredPrice_WhenPriceIsUnreadable() {
+        int updated = refresher.refresh(List.of(book(bookA, "New title", "n/a")));
+
+        assertEquals(2, updated);
+        Item item = basketService.getItem(prefix + "-2", bookA);
+        assertEquals("New title", item.getName());
+        assertEquals(0, new BigDecimal("10.00").compareTo(item.getPrice()));
+    }
+
+    @Test
+    void refresh_ShouldNotWriteItems_WhenNothingChanged() {
+        long version = basketService.getBasketVersion(prefix + "-1");
+
+        assertEquals(0, refresher.refresh(List.of(book(bookA, "Old title", "10.00"), book(bookB, "Old title", "10,00 €"))));
+
+        assertEquals(version, basketService.getBasketVersion(prefix + "-1"));
+    }
+
+    private static Item item(Basket basket, String bookId) {
+        return basket.findItem(bookId);
+    }
+
+    private static Book book(String id, String title, String price) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setPrice(price);
+        return book;
+    }
+}
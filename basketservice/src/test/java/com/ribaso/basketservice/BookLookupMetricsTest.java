@@ -0,0 +1,116 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.port.basket.producer.BookDetailsCache;
+import com.ribaso.basketservice.port.basket.producer.BookLookupMetrics;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import com.ribaso.basketservice.port.exception.UnknownItemIDException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookLookupMetricsTest {
+
+    private SimpleMeterRegistry registry;
+
+    private RabbitTemplate rabbitTemplate;
+
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+
+    private GetBookDetails getBookDetails;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        rabbitTemplate = mock(RabbitTemplate.class);
+        when(rabbitTemplate.getMessageConverter()).thenReturn(converter);
+        getBookDetails = new GetBookDetails(rabbitTemplate, mock(AsyncRabbitTemplate.class),
+                new BookDetailsCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30)),
+                Duration.ofSeconds(5), Duration.ofSeconds(30), false, Duration.ofMillis(10), 50, registry);
+    }
+
+    @Test
+    void getBookDetails_ShouldRecordRoundTrip_WhenBookIsFound() {
+        Book book = new Book();
+        book.setId("1");
+        reply("1", converter.toMessage(book, new MessageProperties()));
+
+        getBookDetails.getBookDetails("1");
+        getBookDetails.getBookDetails("1");
+
+        // Der zweite Aufruf kommt aus dem Cache
+        assertEquals(1, timer("sync", "success").count());
+    }
+
+    @Test
+    void getBookDetails_ShouldCacheNotFound_WhenBookServiceRepliesWithoutBook() {
+        reply("2", converter.toMessage("", new MessageProperties()));
+
+        assertThrows(UnknownItemIDException.class, () -> getBookDetails.getBookDetails("2"));
+        assertThrows(UnknownItemIDException.class, () -> getBookDetails.getBookDetails("2"));
+
+        assertEquals(1, timer("sync", "not_found").count());
+    }
+
+    @Test
+    void getBookDetails_ShouldNotCacheTimeout_WhenNoReplyArrives() {
+        reply("3", null);
+
+        assertThrows(AmqpReplyTimeoutException.class, () -> getBookDetails.getBookDetails("3"));
+        // kein negativer Eintrag: der naechste Aufruf fragt erneut
+        Book book = new Book();
+        book.setId("3");
+        reply("3", converter.toMessage(book, new MessageProperties()));
+        assertEquals("3", getBookDetails.getBookDetails("3").getId());
+    }
+
+    @Test
+    void getBookDetails_ShouldRecordTimeout_WhenNoReplyArrives() {
+        reply("4", null);
+
+        assertThrows(AmqpReplyTimeoutException.class, () -> getBookDetails.getBookDetails("4"));
+
+        assertEquals(1, timer("sync", "timeout").count());
+        assertEquals(1, registry.get("basket.book-lookup.timeouts").tag("mode", "sync").counter().count());
+        assertTrue(registry.find("basket.book-lookup").tag("outcome", "not_found").timers().isEmpty());
+    }
+
+    @Test
+    void record_ShouldCountTimeouts() {
+        BookLookupMetrics metrics = new BookLookupMetrics(registry);
+
+        metrics.record(metrics.start(), "async", new CompletionException(new TimeoutException()));
+        metrics.record(metrics.start(), "async", null);
+
+        assertEquals(1, timer("async", "timeout").count());
+        assertEquals(1, timer("async", "success").count());
+        assertEquals(1, registry.get("basket.book-lookup.timeouts").tag("mode", "async").counter().count());
+    }
+
+    private void reply(String bookId, Message reply) {
+        when(rabbitTemplate.sendAndReceive(eq("exchange"), eq("bookRoutingKey"),
+                argThat(request -> ("\"" + bookId + "\"").equals(new String(request.getBody(), StandardCharsets.UTF_8)))))
+                .thenReturn(reply);
+    }
+
+    private Timer timer(String mode, String outcome) {
+        return registry.get("basket.book-lookup").tag("mode", mode).tag("outcome", outcome).timer();
+    }
+}
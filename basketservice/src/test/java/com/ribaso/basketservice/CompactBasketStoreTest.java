@@ -0,0 +1,163 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.service.impl.CompactBasketStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactBasketStoreTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void read_ShouldReturnTheStoredBasket(boolean offHeap) {
+        CompactBasketStore store = new CompactBasketStore(offHeap);
+        Basket basket = basket("1", 7L);
+        basket.getItems().add(item(basket, "book-1", "First", 2, "10.50", 3L));
+        basket.getItems().add(item(basket, "book-2", null, 1, "4", null));
+        store.put(basket);
+
+        Basket read = store.read("1", Basket::copy);
+
+        assertEquals("1", read.getUserId());
+        assertEquals(7L, read.getVersion());
+        assertEquals(2, read.getItems().size());
+        Item first = read.getItems().get(0);
+        assertEquals("book-1", first.getId());
+        assertEquals("First", first.getName());
+        assertEquals(2, first.getAmount());
+        assertEquals(new BigDecimal("10.50"), first.getPrice());
+        assertEquals(3L, first.getVersion());
+        Item second = read.getItems().get(1);
+        assertNull(second.getName());
+        assertEquals(0, new BigDecimal("4").compareTo(second.getPrice()));
+        assertNull(second.getVersion());
+        assertEquals(new BigDecimal("25.00"), read.getTotalCosts());
+        assertEquals(3, read.getItemCount());
+    }
+
+    @Test
+    void update_ShouldReplaceTheBasket_AndKeepItUnchanged_WhenTheMutationThrows() {
+        CompactBasketStore store = new CompactBasketStore(false);
+        Basket basket = basket("1", null);
+        basket.getItems().add(item(basket, "book-1", "First", 2, "10.00", null));
+        store.put(basket);
+
+        Boolean updated = store.update("1", b -> {
+            b.getItems().get(0).setAmount(5);
+            return true;
+        });
+        assertTrue(updated);
+        assertThrows(IllegalStateException.class, () -> store.update("1", b -> {
+            b.getItems().clear();
+            throw new IllegalStateException();
+        }));
+
+        int amount = store.read("1", b -> b.getItems().get(0).getAmount());
+        assertEquals(5, amount);
+        assertNull(store.update("2", b -> true));
+    }
+
+    @Test
+    void put_ShouldInternIdsAndTitlesAcrossBaskets() {
+        CompactBasketStore store = new CompactBasketStore(false);
+        for (int i = 0; i < 100; i++) {
+            Basket basket = basket("basket-" + i, null);
+            basket.getItems().add(item(basket, "book-1", "First", 1, "10.00", null));
+            basket.getItems().add(item(basket, "book-2", "Second", 1, "5.00", null));
+            store.put(basket);
+        }
+
+        assertEquals(100, store.size());
+        assertEquals(4, store.getDictionarySize());
+        assertEquals("basket-7", store.remove("basket-7"));
+        assertFalse(store.contains("basket-7"));
+    }
+
+    @Test
+    void put_ShouldRejectPricesBelowOneCent() {
+        CompactBasketStore store = new CompactBasketStore(false);
+        Basket basket = basket("1", null);
+        basket.getItems().add(item(basket, "book-1", "First", 1, "10.005", null));
+
+        assertThrows(IllegalArgumentException.class, () -> store.put(basket));
+        assertFalse(store.contains("1"));
+    }
+
+    @Test
+    void update_ShouldWriteInPlace_WhenTheBlockIsLargeEnough() {
+        CompactBasketStore store = new CompactBasketStore(true);
+        Basket basket = basket("1", null);
+        basket.getItems().add(item(basket, "book-1", "First", 1, "10.00", null));
+        store.put(basket);
+
+        for (int i = 2; i <= 100; i++) {
+            int amount = i;
+            store.update("1", b -> {
+                b.getItems().get(0).setAmount(amount);
+                return true;
+            });
+        }
+        // Vier Zeilen passen in den ersten Block, die fuenfte verdoppelt ihn
+        for (int i = 2; i <= 5; i++) {
+            String bookId = "book-" + i;
+            store.update("1", b -> b.getItems().add(item(b, bookId, null, 1, "1.00", null)));
+        }
+
+        assertEquals(2, store.getAllocatedBlocks());
+        assertEquals(104, store.read("1", Basket::getItemCount));
+    }
+
+    @Test
+    void put_ShouldReuseTheBlocksOfRemovedBaskets_WhenOffHeap() {
+        CompactBasketStore store = new CompactBasketStore(true);
+        for (int i = 0; i < 10; i++) {
+            Basket basket = basket("basket-" + i, null);
+            basket.getItems().add(item(basket, "book-1", "First", 1, "10.00", null));
+            store.put(basket);
+            store.remove("basket-" + i);
+        }
+
+        assertEquals(1, store.getAllocatedBlocks());
+        assertNull(store.read("basket-9", Basket::getId));
+    }
+
+    @Test
+    void update_ShouldKeepTheBasket_WhenAPriceCannotBeStored() {
+        CompactBasketStore store = new CompactBasketStore(true);
+        Basket basket = basket("1", null);
+        basket.getItems().add(item(basket, "book-1", "First", 2, "10.00", null));
+        store.put(basket);
+
+        assertThrows(IllegalArgumentException.class, () -> store.update("1", b -> {
+            b.getItems().get(0).setAmount(3);
+            return b.getItems().add(item(b, "book-2", null, 1, "0.125", null));
+        }));
+
+        assertEquals(new BigDecimal("20.00"), store.read("1", Basket::getTotalCosts));
+    }
+
+    private static Basket basket(String id, Long version) {
+        Basket basket = new Basket();
+        basket.setId(id);
+        basket.setUserId(id);
+        basket.setVersion(version);
+        return basket;
+    }
+
+    private static Item item(Basket basket, String id, String name, int amount, String price, Long version) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setAmount(amount);
+        item.setPrice(new BigDecimal(price));
+        item.setVersion(version);
+        item.setBasket(basket);
+        return item;
+    }
+}
@@ -0,0 +1,110 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.port.basket.producer.BookDetailsCache;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.RabbitConverterFuture;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class GetBookDetailsTest {
+
+    private final AsyncRabbitTemplate asyncRabbitTemplate = mock(AsyncRabbitTemplate.class);
+
+    private GetBookDetails getBookDetails;
+
+    @AfterEach
+    void tearDown() {
+        if (getBookDetails != null) {
+            getBookDetails.close();
+        }
+    }
+
+    @Test
+    void getBookDetailsAsync_ShouldRejectTimeout_WhenAboveMaximum() {
+        getBookDetails = create(false);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> getBookDetails.getBookDetailsAsync("1", Duration.ofSeconds(31)));
+        verifyNoInteractions(asyncRabbitTemplate);
+    }
+
+    @Test
+    void getBookDetailsAsync_ShouldAcceptTimeout_UpToMaximum() {
+        RabbitConverterFuture<Book> reply = reply(CompletableFuture.completedFuture(book("1")));
+        when(asyncRabbitTemplate.<Book>convertSendAndReceive(eq("exchange"), eq("bookRoutingKey"), (Object) eq("1")))
+                .thenReturn(reply);
+        getBookDetails = create(false);
+
+        CompletableFuture<Book> future = getBookDetails.getBookDetailsAsync("1", Duration.ofSeconds(30));
+
+        assertEquals("1", future.join().getId());
+        verify(reply).orTimeout(30_000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void getBookDetailsAsync_ShouldApplyCallerTimeout_WhenBatchIsPending() throws Exception {
+        RabbitConverterFuture<List<Book>> reply = reply(new CompletableFuture<>());
+        when(asyncRabbitTemplate.convertSendAndReceiveAsType(eq("exchange"), eq("bookBatchRoutingKey"),
+                any(Object.class), ArgumentMatchers.<ParameterizedTypeReference<List<Book>>>any())).thenReturn(reply);
+        getBookDetails = create(true);
+
+        CompletableFuture<Book> shortWait = getBookDetails.getBookDetailsAsync("1", Duration.ofMillis(100));
+        CompletableFuture<Book> longWait = getBookDetails.getBookDetailsAsync("1", Duration.ofSeconds(30));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> shortWait.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        // Der laengere Timeout des zweiten Aufrufers gilt weiter, die Batch-Anfrage nur mit der Obergrenze
+        assertFalse(longWait.isDone());
+        verify(reply).orTimeout(30_000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void constructor_ShouldRejectDefaultTimeout_WhenAboveMaximum() {
+        assertThrows(IllegalArgumentException.class, () -> new GetBookDetails(mock(RabbitTemplate.class),
+                asyncRabbitTemplate, cache(), Duration.ofSeconds(60), Duration.ofSeconds(30), false,
+                Duration.ofMillis(10), 50, new SimpleMeterRegistry()));
+    }
+
+    private GetBookDetails create(boolean batchEnabled) {
+        return new GetBookDetails(mock(RabbitTemplate.class), asyncRabbitTemplate, cache(),
+                Duration.ofSeconds(5), Duration.ofSeconds(30), batchEnabled, Duration.ofMillis(10), 50,
+                new SimpleMeterRegistry());
+    }
+
+    // Der Konstruktor von RabbitConverterFuture ist nicht oeffentlich; orTimeout liefert das Ergebnis
+    @SuppressWarnings("unchecked")
+    private static <T> RabbitConverterFuture<T> reply(CompletableFuture<T> result) {
+        RabbitConverterFuture<T> reply = mock(RabbitConverterFuture.class);
+        when(reply.orTimeout(anyLong(), any())).thenReturn(result);
+        return reply;
+    }
+
+    private static BookDetailsCache cache() {
+        return new BookDetailsCache(100, Duration.ofMinutes(10), Duration.ofSeconds(30));
+    }
+
+    private static Book book(String id) {
+        Book book = new Book();
+        book.setId(id);
+        return book;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.service.impl.InMemoryBasketStore;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Flush und Verdraengung des Write-Behind-Speichers gegen ein gemocktes Repository, Batches zu je zwei
+ * Warenkoerben.
+ */
+class InMemoryBasketStoreTest {
+
+    private final BasketRepository basketRepository = mock(BasketRepository.class);
+
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    private InMemoryBasketStore store;
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    void flush_ShouldKeepLaterBatchesPending_WhenSecondBatchFails() {
+        store = create(Duration.ZERO);
+        when(basketRepository.saveAll(anyIterable()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        for (int i = 1; i <= 5; i++) {
+            store.create(basket("basket-" + i));
+        }
+
+        assertThrows(DataAccessResourceFailureException.class, () -> store.flush());
+        // der gescheiterte und der nie versuchte dritte Batch bleiben offen
+        assertEquals(3, store.getDirtyCount());
+
+        store.flush();
+
+        assertEquals(0, store.getDirtyCount());
+        assertEquals(Set.of("basket-1", "basket-2", "basket-3", "basket-4", "basket-5"), savedIds(4));
+    }
+
+    @Test
+    void flush_ShouldKeepLaterDeletionsPending_WhenSecondBatchFails() {
+        store = create(Duration.ZERO);
+        when(basketRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+        for (int i = 1; i <= 5; i++) {
+            store.create(basket("basket-" + i));
+        }
+        store.flush();
+        for (int i = 1; i <= 5; i++) {
+            store.remove("basket-" + i);
+        }
+        doNothing()
+                .doThrow(new DataAccessResourceFailureException("database down"))
+                .doNothing()
+                .when(basketRepository).deleteAllById(anyIterable());
+
+        assertThrows(DataAccessResourceFailureException.class, () -> store.flush());
+        assertEquals(3, store.getDirtyCount());
+
+        store.flush();
+
+        assertEquals(0, store.getDirtyCount());
+        assertFalse(store.exists("basket-5"));
+    }
+
+    @Test
+    void flush_ShouldEvictIdleBaskets_WhenTheirChangesAreWritten() throws Exception {
+        store = create(Duration.ofMillis(1));
+        when(basketRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+        store.create(basket("basket-1"));
+        Thread.sleep(5);
+
+        store.flush();
+
+        assertEquals(0, store.getResidentCount());
+        assertEquals(1, store.getEvictedCount());
+        // beim naechsten Zugriff wieder geladen
+        when(basketRepository.findWithItemsById("basket-1")).thenReturn(Optional.of(basket("basket-1")));
+        assertEquals(Optional.of("basket-1"), store.read("basket-1", Basket::getId));
+        assertEquals(1, store.getResidentCount());
+    }
+
+    @Test
+    void flush_ShouldKeepBaskets_WhenRecentlyUsed() {
+        store = create(Duration.ofHours(1));
+        when(basketRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+        store.create(basket("basket-1"));
+
+        store.flush();
+
+        assertEquals(1, store.getResidentCount());
+        assertEquals(0, store.getEvictedCount());
+        verify(basketRepository, never()).findWithItemsById(anyString());
+    }
+
+    private InMemoryBasketStore create(Duration idleEviction) {
+        return new InMemoryBasketStore(basketRepository, mock(ItemRepository.class), transactionTemplate,
+                Duration.ofHours(1), 2, "objects", idleEviction);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> savedIds(int calls) {
+        ArgumentCaptor<Iterable<Basket>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(basketRepository, times(calls)).saveAll(saved.capture());
+        Set<String> ids = new TreeSet<>();
+        saved.getAllValues().forEach(batch -> batch.forEach(basket -> ids.add(basket.getId())));
+        return ids;
+    }
+
+    private static Basket basket(String id) {
+        Basket basket = new Basket();
+        basket.setId(id);
+        basket.setUserId(id);
+        return basket;
+    }
+}
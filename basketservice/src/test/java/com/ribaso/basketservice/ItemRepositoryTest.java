@@ -0,0 +1,85 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.model.ItemKey;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.ItemRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Jeder Test laeuft in einer Transaktion, die am Ende zurueckgerollt wird
+@SpringBootTest
+@Transactional
+class ItemRepositoryTest {
+
+    @Autowired
+    private BasketRepository basketRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        basketRepository.save(basket("basket-1", item("book", 1, "10.00")));
+        basketRepository.save(basket("basket-2", item("book", 3, "12.00")));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void sameBook_ShouldBeStoredInSeveralBaskets() {
+        assertEquals(1, itemRepository.findByBasketIdAndBookId("basket-1", "book").orElseThrow().getAmount());
+        assertEquals(3, itemRepository.findByBasketIdAndBookId("basket-2", "book").orElseThrow().getAmount());
+        assertTrue(itemRepository.findById(new ItemKey("book", "basket-2")).isPresent());
+    }
+
+    @Test
+    void findByBasketIdAndBookId_ShouldBeEmpty_WhenBookIsInAnotherBasket() {
+        basketRepository.save(basket("basket-3"));
+
+        assertTrue(itemRepository.findByBasketIdAndBookId("basket-3", "book").isEmpty());
+    }
+
+    @Test
+    void quantityUpdates_ShouldOnlyTouchTheGivenBasket() {
+        assertEquals(1, itemRepository.incrementAmount("basket-1", "book", 4));
+        entityManager.clear();
+
+        assertEquals(5, itemRepository.findByBasketIdAndBookId("basket-1", "book").orElseThrow().getAmount());
+        assertEquals(3, itemRepository.findByBasketIdAndBookId("basket-2", "book").orElseThrow().getAmount());
+        assertEquals(1L, itemRepository.findVersionByBasketIdAndBookId("basket-1", "book").orElseThrow());
+        assertEquals(0L, itemRepository.findVersionByBasketIdAndBookId("basket-2", "book").orElseThrow());
+    }
+
+    private static Basket basket(String id, Item... items) {
+        Basket basket = new Basket();
+        basket.setId(id);
+        basket.setUserId(id);
+        for (Item item : items) {
+            basket.addItem(item);
+        }
+        basket.recalculateTotals();
+        return basket;
+    }
+
+    private static Item item(String bookId, int amount, String price) {
+        Item item = new Item();
+        item.setId(bookId);
+        item.setName("Test Book");
+        item.setAmount(amount);
+        item.setPrice(new BigDecimal(price));
+        return item;
+    }
+}
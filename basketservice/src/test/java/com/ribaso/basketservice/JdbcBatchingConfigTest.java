@@ -0,0 +1,47 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.port.config.JdbcBatchingConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcBatchingConfigTest {
+
+    private final BeanPostProcessor postProcessor = JdbcBatchingConfig.postgresBatchedInsertsPostProcessor();
+
+    @Test
+    void postgresDataSource_ShouldRewriteBatchedInserts() {
+        HikariDataSource dataSource = dataSource("jdbc:postgresql://localhost:5432/basket");
+
+        postProcessor.postProcessBeforeInitialization(dataSource, "dataSource");
+
+        assertEquals("true", dataSource.getDataSourceProperties().getProperty("reWriteBatchedInserts"));
+    }
+
+    @Test
+    void postgresDataSource_ShouldKeepExplicitSetting() {
+        HikariDataSource dataSource = dataSource("jdbc:postgresql://localhost:5432/basket");
+        dataSource.addDataSourceProperty("reWriteBatchedInserts", "false");
+
+        postProcessor.postProcessBeforeInitialization(dataSource, "dataSource");
+
+        assertEquals("false", dataSource.getDataSourceProperties().getProperty("reWriteBatchedInserts"));
+    }
+
+    @Test
+    void otherDataSources_ShouldStayUntouched() {
+        HikariDataSource dataSource = dataSource("jdbc:h2:mem:basket");
+
+        postProcessor.postProcessBeforeInitialization(dataSource, "dataSource");
+
+        assertTrue(dataSource.getDataSourceProperties().isEmpty());
+    }
+
+    private static HikariDataSource dataSource(String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        return dataSource;
+    }
+}
@@ -0,0 +1,40 @@
+package com.ribaso.basketservice;
+
+import org.hibernate.BaseSessionEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Zählt die Ausführungen von Statements und Batches, also die Roundtrips zur Datenbank.
+ * Hibernates Statistik zählt bei Batches jede einzelne Zeile; eingebunden wird der Zähler
+ * mit {@code spring.jpa.properties.hibernate.session.events.auto}.
+ */
+public class JdbcRoundTrips extends BaseSessionEventListener {
+
+    private static final AtomicLong statements = new AtomicLong();
+
+    private static final AtomicLong batches = new AtomicLong();
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statements.incrementAndGet();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batches.incrementAndGet();
+    }
+
+    public static long getStatementCount() {
+        return statements.get();
+    }
+
+    public static long getBatchCount() {
+        return batches.get();
+    }
+
+    public static void clear() {
+        statements.set(0);
+        batches.set(0);
+    }
+}
@@ -0,0 +1,215 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.service.impl.LaneBasketService;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import com.ribaso.basketservice.port.exception.BasketBusyException;
+import com.ribaso.basketservice.port.exception.UnknownItemIDException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LaneBasketServiceTest {
+
+    private final BasketService delegate = mock(BasketService.class);
+
+    private final GetBookDetails getBookDetails = mock(GetBookDetails.class);
+
+    private LaneBasketService laneBasketService;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        laneBasketService.close();
+    }
+
+    @Test
+    void mutationsOfOneBasket_ShouldNeverOverlap() throws Exception {
+        laneBasketService = new LaneBasketService(delegate, getBookDetails, 4, 1000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(delegate.removeItem(anyString(), anyString(), anyInt())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.yield();
+            running.decrementAndGet();
+            return true;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                results.add(executor.submit(() -> laneBasketService.removeItem("1", "1", 1)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, maxRunning.get());
+        verify(delegate, times(400)).removeItem("1", "1", 1);
+    }
+
+    @Test
+    void mutationsOfBasketsOnOtherLanes_ShouldRunInParallel() throws Exception {
+        laneBasketService = new LaneBasketService(delegate, getBookDetails, 2, 10);
+        String first = "1";
+        String second = basketOnOtherLane(first);
+        CountDownLatch secondDone = new CountDownLatch(1);
+        when(delegate.removeItem(eq(first), anyString(), anyInt()))
+                .thenAnswer(invocation -> secondDone.await(5, TimeUnit.SECONDS));
+        when(delegate.removeItem(eq(second), anyString(), anyInt())).thenAnswer(invocation -> {
+            secondDone.countDown();
+            return true;
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> blocked = executor.submit(() -> laneBasketService.removeItem(first, "1", 1));
+            assertTrue(laneBasketService.removeItem(second, "1", 1));
+            // Nur wahr, wenn der zweite Warenkorb nicht hinter dem ersten warten musste
+            assertTrue(blocked.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void fullLane_ShouldRejectWithBasketBusy() throws Exception {
+        laneBasketService = new LaneBasketService(delegate, getBookDetails, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.removeItem(anyString(), anyString(), anyInt())).thenAnswer(invocation -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> running = executor.submit(() -> laneBasketService.removeItem("1", "1", 1));
+            started.await();
+            Future<Boolean> queued = executor.submit(() -> laneBasketService.removeItem("1", "1", 1));
+            while (laneBasketService.getQueueDepth(0) < 1) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(BasketBusyException.class, () -> laneBasketService.removeItem("1", "1", 1));
+            assertEquals(1, laneBasketService.getRejectedCount());
+
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS));
+            assertTrue(queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, laneBasketService.getQueueDepth(0));
+    }
+
+    @Test
+    void exceptionsOfTheDelegate_ShouldReachTheCaller() throws Exception {
+        laneBasketService = new LaneBasketService(delegate, getBookDetails, 2, 10);
+        when(delegate.removeItem("1", "1", 1)).thenThrow(new UnknownItemIDException("Item not found"));
+        when(delegate.addItem("1", "1", 1)).thenThrow(new IOException("Book service unavailable"));
+
+        assertThrows(UnknownItemIDException.class, () -> laneBasketService.removeItem("1", "1", 1));
+        assertThrows(IOException.class, () -> laneBasketService.addItem("1", "1", 1));
+    }
+
+    @Test
+    void addItem_ShouldNotHoldTheLane_WhileTheBookIsLookedUp() throws Exception {
+        laneBasketService = new LaneBasketService(delegate, getBookDetails, 1, 10);
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(getBookDetails.getBookDetails(anyCollection())).thenAnswer(invocation -> {
+            lookupStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of("1", new Book());
+        });
+        when(delegate.addItem("1", "1", 1)).thenReturn(true);
+        when(delegate.removeItem("2", "1", 1)).thenReturn(true);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> adding = executor.submit(() -> laneBasketService.addItem("1", "1", 1));
+            lookupStarted.await();
+            // Eine einzige Lane: laeuft das, wartet sie nicht auf die Abfrage
+            assertTrue(laneBasketService.removeItem("2", "1", 1));
+            verify(delegate, never()).addItem(anyString(), anyString(), anyInt());
+
+            release.countDown();
+            assertTrue(adding.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void addItemAsync_ShouldQueueTheMutation_WhenTheBookArrived() throws Exception {
+        laneBasketService = new LaneBasketService(delegate, getBookDetails, 1, 10);
+        CompletableFuture<Book> lookup = new CompletableFuture<>();
+        when(getBookDetails.getBookDetailsAsync("1")).thenReturn(lookup);
+        when(delegate.addItem("1", "1", 1)).thenReturn(true);
+        when(delegate.removeItem("2", "1", 1)).thenReturn(true);
+
+        CompletableFuture<Boolean> adding = laneBasketService.addItemAsync("1", "1", 1);
+        assertTrue(laneBasketService.removeItem("2", "1", 1));
+        assertFalse(adding.isDone());
+
+        lookup.complete(new Book());
+        assertTrue(adding.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void addItem_ShouldFailWithoutQueueing_WhenLookupOfNewItemTimesOut() throws Exception {
+        laneBasketService = new LaneBasketService(delegate, getBookDetails, 2, 10);
+        when(getBookDetails.getBookDetails(anyCollection()))
+                .thenThrow(new AmqpReplyTimeoutException("Book service did not respond in time", null));
+        when(delegate.getBasket("1")).thenReturn(basketWith("2"));
+        when(delegate.addItem("1", "2", 1)).thenReturn(true);
+
+        assertThrows(AmqpReplyTimeoutException.class, () -> laneBasketService.addItem("1", "1", 1));
+        verify(delegate, never()).addItem(anyString(), anyString(), anyInt());
+        // Vorhandene Artikel brauchen keine Buchdetails
+        assertTrue(laneBasketService.addItem("1", "2", 1));
+    }
+
+    private static Basket basketWith(String itemID) {
+        Basket basket = new Basket();
+        basket.setId("1");
+        Item item = new Item();
+        item.setId(itemID);
+        basket.addItem(item);
+        return basket;
+    }
+
+    private String basketOnOtherLane(String basketID) {
+        for (int i = 2; ; i++) {
+            String candidate = String.valueOf(i);
+            if (laneBasketService.laneOf(candidate) != laneBasketService.laneOf(basketID)) {
+                return candidate;
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "basket.metrics.hibernate-statistics=true")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private GetBookDetails getBookDetails;
+
+    @Test
+    void basketOperations_ShouldBeTimedPerControllerMethod() throws Exception {
+        mockMvc.perform(post("/baskets").param("userId", "metrics-user"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/baskets/metrics-user"))
+                .andExpect(status().isOk());
+
+        assertEquals(1, meterRegistry.get("basket.operation").tag("method", "createBasket").timer().count());
+        assertEquals(1, meterRegistry.get("basket.operation").tag("method", "getBasket").timer().count());
+    }
+
+    @Test
+    void handledExceptions_ShouldBeCounted() throws Exception {
+        mockMvc.perform(post("/baskets/metrics-missing/items")
+                .param("itemID", "1")
+                .param("amount", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/baskets/metrics-missing/items/1"))
+                .andExpect(status().isNotFound());
+
+        assertEquals(1, meterRegistry.get("basket.errors").tag("exception", "InvalidAmountException").counter().count());
+        assertEquals(1, meterRegistry.get("basket.errors").tag("exception", "UnknownBasketIDException").counter().count());
+    }
+
+    @Test
+    void prometheusEndpoint_ShouldExposeServiceAndInfrastructureMetrics() throws Exception {
+        mockMvc.perform(post("/baskets").param("userId", "metrics-scrape"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("basket_operation_seconds_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections")))
+                .andExpect(content().string(containsString("hibernate_statements")))
+                .andExpect(content().string(containsString("cache_gets_total{application=\"basketservice\",cache=\"bookDetails\"")))
+                .andExpect(content().string(containsString("basket_price_parse_failures_total")));
+    }
+}
@@ -0,0 +1,15 @@
+package com.ribaso.basketservice;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Die Write-Behind-Tests mit kompakt und ausserhalb des Heaps gehaltenen Warenkoerben.
+ */
+@SpringBootTest(properties = {
+        "basket.storage.mode=write-behind",
+        "basket.storage.write-behind.max-staleness=1h",
+        "basket.storage.write-behind.flush-batch-size=2",
+        "basket.storage.write-behind.layout=off-heap"
+})
+class OffHeapWriteBehindBasketServiceTest extends WriteBehindBasketServiceTest {
+}
@@ -0,0 +1,56 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.service.impl.PriceParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceParserTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "12.99|12.99",
+            "10.00|10.00",
+            "12,99 €|12.99",
+            "€12.99|12.99",
+            "EUR 1.234,56|1234.56",
+            "1,234.56 USD|1234.56",
+            "1.234.567|1234567",
+            "1.125|1.125",
+            "1,250 €|1.250",
+            "0.125|0.125",
+            "1234.5|1234.5",
+            "1 234,56 €|1234.56",
+            "1'234.50 CHF|1234.50",
+            "-5.00|-5.00",
+            "12,- €|12",
+            "42|42"
+    })
+    void parse_ShouldReadPrice(String text, String expected) {
+        assertEquals(new BigDecimal(expected), PriceParser.parse(text));
+    }
+
+    @Test
+    void parse_ShouldAcceptNoBreakSpaceBetweenDigitsAndCurrency() {
+        assertEquals(new BigDecimal("1234.56"), PriceParser.parse("1\u00A0234,56\u00A0€"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "EUR", "free", "1.23.456", "1,2,3", "1,234.567,8", "12..5", "1234567890123456789" })
+    void parse_ShouldReturnZeroAndCountFailure_WhenPriceIsInvalid(String text) {
+        long failures = PriceParser.getFailureCount();
+
+        assertEquals(BigDecimal.ZERO, PriceParser.parse(text));
+        assertEquals(failures + 1, PriceParser.getFailureCount());
+    }
+
+    @Test
+    void parse_ShouldReturnZero_WhenPriceIsMissing() {
+        assertEquals(BigDecimal.ZERO, PriceParser.parse(null));
+    }
+}
@@ -0,0 +1,51 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.service.impl.RetryingBasketService;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RetryingBasketServiceTest {
+
+    private final BasketService delegate = mock(BasketService.class);
+
+    private final RetryingBasketService retryingBasketService =
+            new RetryingBasketService(delegate, 3, Duration.ofMillis(1), Duration.ofMillis(5));
+
+    @Test
+    void addItemAsync_ShouldRetryAsynchronously_WhenConflicting() throws Exception {
+        when(delegate.addItemAsync("1", "1", 1))
+                .thenReturn(CompletableFuture.failedFuture(new OptimisticLockingFailureException("conflict")))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        assertTrue(retryingBasketService.addItemAsync("1", "1", 1).get(5, TimeUnit.SECONDS));
+
+        // Kein synchroner Retry im Thread, der den Konflikt gemeldet hat, etwa einer Lane
+        verify(delegate, times(2)).addItemAsync("1", "1", 1);
+        verify(delegate, never()).addItem(anyString(), anyString(), anyInt());
+        assertEquals(1, retryingBasketService.getRetryCount());
+    }
+
+    @Test
+    void addItemAsync_ShouldFail_WhenStillConflictingAfterLastAttempt() {
+        when(delegate.addItemAsync("1", "1", 1))
+                .thenAnswer(invocation -> CompletableFuture.failedFuture(new OptimisticLockingFailureException("conflict")));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> retryingBasketService.addItemAsync("1", "1", 1).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(OptimisticLockingFailureException.class, e.getCause());
+        verify(delegate, times(3)).addItemAsync("1", "1", 1);
+        assertEquals(1, retryingBasketService.getExhaustedCount());
+    }
+}
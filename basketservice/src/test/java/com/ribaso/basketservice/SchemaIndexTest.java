@@ -0,0 +1,126 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prueft mit EXPLAIN, dass die haeufigen Abfragen der Repositories die Indizes aus den
+ * Migrationen nutzen. H2 im PostgreSQL-Modus, damit dieselben Migrationen laufen wie in Produktion.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:explain;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.ribaso.basketservice.RecordedStatements",
+        // sonst zeichnet der Publisher seine Abfragen zwischen Aufruf und EXPLAIN auf
+        "basket.events.publish-interval=0"})
+class SchemaIndexTest {
+
+    @Autowired
+    private BasketRepository basketRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        RecordedStatements.clear();
+    }
+
+    @Test
+    void findByUserId_ShouldUseUserIdIndex() {
+        basketRepository.findByUserId("user");
+
+        String plan = explain(lastStatement());
+        assertIndexScan(plan);
+        assertTrue(plan.contains("basket_user_id_idx: user_id = ?1"), plan);
+    }
+
+    @Test
+    void findByBasketIdAndBookId_ShouldUsePrimaryKey() {
+        itemRepository.findByBasketIdAndBookId("basket", "book");
+
+        String plan = explain(lastStatement());
+        assertIndexScan(plan);
+        assertTrue(plan.contains(": basket_id = ?1 AND book_id = ?2"), plan);
+    }
+
+    @Test
+    void findIdsByBasketId_ShouldUsePrimaryKeyPrefix() {
+        itemRepository.findIdsByBasketId("basket");
+
+        String plan = explain(lastStatement());
+        assertIndexScan(plan);
+        assertTrue(plan.contains(": basket_id = ?1"), plan);
+    }
+
+    @Test
+    void findWithItemsById_ShouldJoinItemsByIndex() {
+        basketRepository.findWithItemsById("basket");
+
+        String plan = explain(lastStatement());
+        assertIndexScan(plan);
+        assertTrue(plan.contains(": basket_id = b1_0.id"), plan);
+    }
+
+    @Test
+    void updateBookDetails_ShouldFindItemsByBookIdIndex() {
+        transactionTemplate.executeWithoutResult(status -> itemRepository.updateBookDetails(Map.of("book", "title"), Map.of()));
+
+        String plan = explain(lastStatement());
+        assertIndexScan(plan);
+        assertTrue(plan.contains("item_book_id_idx: book_id = ?"), plan);
+    }
+
+    @Test
+    void lockByBookIds_ShouldFindItemsByBookIdIndex() {
+        transactionTemplate.executeWithoutResult(status -> basketRepository.lockByBookIds(List.of("book")));
+
+        String plan = explain(lastStatement());
+        assertIndexScan(plan);
+        assertTrue(plan.contains("item_book_id_idx: book_id = ?"), plan);
+    }
+
+    private static void assertIndexScan(String plan) {
+        // H2 markiert Zugriffe ohne Index als tableScan, sonst steht der Index mit der Bedingung im Plan
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    private static String lastStatement() {
+        List<String> statements = RecordedStatements.get();
+        assertFalse(statements.isEmpty());
+        return statements.get(statements.size() - 1);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                    statement.setString(i, "x");
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getString(1).replaceAll("\\s+", " ");
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Eine Datenbank, die Hibernate vor Flyway angelegt hat und die schon Daten enthaelt, wird als
+ * Version 1 uebernommen und migriert; danach startet die Anwendung mit ddl-auto=validate.
+ */
+@SpringBootTest(properties = "basket.events.publish-interval=0")
+class SchemaMigrationTest {
+
+    private static final String URL = "jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private BasketService basketService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private GetBookDetails getBookDetails;
+
+    // Laeuft beim Aufbau des Kontexts, also vor Flyway
+    @DynamicPropertySource
+    static void legacyDatabase(DynamicPropertyRegistry registry) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            // DDL wie von Hibernate mit ddl-auto erzeugt
+            statement.execute("create table basket (id varchar(255) not null, user_id varchar(255), primary key (id))");
+            statement.execute("create table book (num_pages integer not null, abstract_text varchar(255), "
+                    + "author varchar(255), id varchar(255) not null, isbn varchar(255), price varchar(255), "
+                    + "publisher varchar(255), subtitle varchar(255), title varchar(255), primary key (id))");
+            statement.execute("create table item (amount integer not null, price numeric(38,2), "
+                    + "basket_id varchar(255), id varchar(255) not null, name varchar(255), primary key (id))");
+            statement.execute("alter table if exists item add constraint FKfa0r8gvappsdoa4vdrcymwe7c "
+                    + "foreign key (basket_id) references basket");
+
+            statement.execute("insert into basket (id, user_id) values "
+                    + "('legacy-1', 'legacy-1'), ('legacy-2', 'legacy-2'), ('legacy-3', 'legacy-3')");
+            statement.execute("insert into item (id, basket_id, name, amount, price) values "
+                    + "('book-1', 'legacy-1', 'Erstes Buch', 2, 10.00), "
+                    + "('book-2', 'legacy-1', 'Zweites Buch', 1, 5.50), "
+                    + "('book-3', null, 'Verwaist', 4, 7.00), "
+                    + "('book-4', 'legacy-2', 'Ohne Preis', 1, null), "
+                    + "('book-5', 'legacy-3', 'Drittes Buch', 2, 8.00)");
+        }
+        registry.add("spring.datasource.url", () -> URL);
+    }
+
+    @Test
+    void migrate_ShouldBaselineAtVersion1AndApplyLaterVersions() {
+        // ohne die Zeile, mit der Flyway das Anlegen der Historientabelle vermerkt
+        List<Map<String, Object>> history = jdbcTemplate.queryForList("select \"version\", \"type\", \"success\" "
+                + "from \"flyway_schema_history\" where \"version\" is not null order by \"installed_rank\"");
+
+        assertEquals(List.of("1", "2", "3", "4", "5"), history.stream().map(row -> row.get("version")).toList());
+        assertEquals("BASELINE", history.get(0).get("type"));
+        assertTrue(history.stream().allMatch(row -> Boolean.TRUE.equals(row.get("success"))));
+    }
+
+    @Test
+    void migrate_ShouldKeepItemsAndFillTotals() throws Exception {
+        assertEquals(2, basketService.getItem("legacy-1", "book-1").getAmount());
+        assertEquals(0, new BigDecimal("25.50").compareTo(basketService.getTotalCosts("legacy-1")));
+        assertEquals(3, basketService.getBasketSummary("legacy-1").getItemCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(basketService.getTotalCosts("legacy-2")));
+        // der Artikel ohne Warenkorb ist entfallen
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from item where book_id = 'book-3'", Integer.class));
+    }
+
+    @Test
+    void migratedBaskets_ShouldAcceptChanges() throws Exception {
+        // Version 0 aus der Migration: Hibernate aktualisiert die Zeilen, statt sie neu einzufuegen
+        basketService.addItem("legacy-3", "book-5", 1);
+        basketService.removeItem("legacy-3", "book-5", 2);
+
+        assertEquals(1, basketService.getItem("legacy-3", "book-5").getAmount());
+        assertEquals(0, new BigDecimal("8.00").compareTo(basketService.getTotalCosts("legacy-3")));
+        assertTrue(basketService.removeBasket("legacy-3"));
+    }
+}
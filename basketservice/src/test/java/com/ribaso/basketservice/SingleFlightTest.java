@@ -0,0 +1,121 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.port.basket.producer.SingleFlight;
+import com.ribaso.basketservice.port.exception.UnknownItemIDException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void execute_ShouldShareOneCall_WhenCallsOverlap() throws Exception {
+        int callers = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> singleFlight.execute("1", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "book";
+            })));
+            started.await();
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("1", () -> {
+                    calls.incrementAndGet();
+                    return "other";
+                })));
+            }
+            while (singleFlight.coalescedCount() < callers - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("book", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.executedCount());
+        assertEquals(callers - 1, singleFlight.coalescedCount());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void execute_ShouldReleaseWaiters_WhenCallThrowsError() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> singleFlight.execute("1", () -> {
+                started.countDown();
+                await(release);
+                throw new StackOverflowError();
+            }));
+            started.await();
+            Future<String> second = executor.submit(() -> singleFlight.execute("1", () -> "other"));
+            while (singleFlight.coalescedCount() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<String> result : List.of(first, second)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(StackOverflowError.class, e.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void executeAsync_ShouldShareResultAndFailure() {
+        CompletableFuture<String> reply = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.executeAsync("1", () -> reply);
+        CompletableFuture<String> second = singleFlight.executeAsync("1", CompletableFuture::new);
+        reply.completeExceptionally(new UnknownItemIDException("Book not found"));
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        assertEquals(1, singleFlight.coalescedCount());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void execute_ShouldCallAgain_WhenPreviousCallFinished() {
+        singleFlight.execute("1", () -> "a");
+        assertEquals("b", singleFlight.execute("1", () -> "b"));
+
+        assertEquals(2, singleFlight.executedCount());
+        assertEquals(0, singleFlight.coalescedCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.ribaso.basketservice;
+
+import com.rabbitmq.client.ConnectionFactory;
+import com.ribaso.basketservice.port.config.VirtualThreadsConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.autoconfigure.amqp.ConnectionFactoryCustomizer;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadsConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadsConfig.class);
+
+    @Test
+    void customizer_ShouldBeAbsent_WhenVirtualThreadsAreDisabled() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=false")
+                .run(context -> assertThat(context).doesNotHaveBean(ConnectionFactoryCustomizer.class));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void customizer_ShouldUseVirtualThreadsForRabbitClient_WhenEnabled() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+            ConnectionFactory connectionFactory = new ConnectionFactory();
+            context.getBean(ConnectionFactoryCustomizer.class).customize(connectionFactory);
+
+            Thread thread = connectionFactory.getThreadFactory().newThread(() -> { });
+            assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+        });
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void customizer_ShouldBeAbsent_WhenJavaVersionHasNoVirtualThreads() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true")
+                .run(context -> assertThat(context).doesNotHaveBean(ConnectionFactoryCustomizer.class));
+    }
+}
@@ -0,0 +1,82 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * ETags im Write-Behind-Modus: die persistierte Version steht erst nach dem Flush fest, das ETag
+ * der Antwort und der Vergleich mit If-None-Match beruhen deshalb beide auf dem Inhalt im Speicher.
+ */
+@SpringBootTest(properties = {
+        "basket.storage.mode=write-behind",
+        "basket.storage.write-behind.max-staleness=1h"
+})
+@AutoConfigureMockMvc
+class WriteBehindBasketControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BasketService basketService;
+
+    @MockBean
+    private GetBookDetails getBookDetails;
+
+    @BeforeEach
+    void setUp() {
+        Book book = new Book();
+        book.setId("book-1");
+        book.setTitle("Test Book");
+        book.setPrice("10.00");
+        when(getBookDetails.getBookDetails(anyString())).thenReturn(book);
+    }
+
+    @Test
+    void getBasket_ShouldReturnNotModified_WhenClientSendsTheETagBack() throws Exception {
+        basketService.createBasket("wb-etag-1");
+        basketService.addItem("wb-etag-1", "book-1", 2);
+
+        String etag = mockMvc.perform(get("/baskets/wb-etag-1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/baskets/wb-etag-1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void getBasket_ShouldReturnNewETag_WhenBasketChangedInMemory() throws Exception {
+        basketService.createBasket("wb-etag-2");
+        String etag = mockMvc.perform(get("/baskets/wb-etag-2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        basketService.addItem("wb-etag-2", "book-1", 1);
+
+        String changed = mockMvc.perform(get("/baskets/wb-etag-2").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].amount").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(changed);
+        assertNotEquals(etag, changed);
+        mockMvc.perform(get("/baskets/wb-etag-2").header(HttpHeaders.IF_NONE_MATCH, changed))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,182 @@
+package com.ribaso.basketservice;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketSummary;
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.model.ItemSummary;
+import com.ribaso.basketservice.core.domain.service.impl.InMemoryBasketStore;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketService;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "basket.storage.mode=write-behind",
+        "basket.storage.write-behind.max-staleness=1h",
+        "basket.storage.write-behind.flush-batch-size=2"
+})
+class WriteBehindBasketServiceTest {
+
+    @Autowired
+    private BasketService basketService;
+
+    @Autowired
+    private InMemoryBasketStore basketStore;
+
+    @Autowired
+    private BasketRepository basketRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private GetBookDetails getBookDetails;
+
+    @BeforeEach
+    void setUp() {
+        Book book = new Book();
+        book.setId("book-1");
+        book.setTitle("Test Book");
+        book.setPrice("10.00");
+        when(getBookDetails.getBookDetails(anyString())).thenReturn(book);
+    }
+
+    @Test
+    void changes_ShouldOnlyBePersisted_WhenFlushed() throws Exception {
+        basketService.createBasket("wb-user-1");
+        basketService.addItem("wb-user-1", "book-1", 2);
+        basketService.addItem("wb-user-1", "book-1", 1);
+
+        assertEquals(new BigDecimal("30.00"), basketService.getTotalCosts("wb-user-1"));
+        assertFalse(basketRepository.existsById("wb-user-1"));
+
+        basketStore.flush();
+
+        assertEquals(0, basketStore.getDirtyCount());
+        int persistedAmount = transactionTemplate.execute(status ->
+                basketRepository.findById("wb-user-1").orElseThrow().getItems().get(0).getAmount());
+        assertEquals(3, persistedAmount);
+    }
+
+    @Test
+    void summaryAndItems_ShouldBeServedFromMemory() throws Exception {
+        basketService.createBasket("wb-user-7");
+        basketService.addItem("wb-user-7", "book-b", 1);
+        basketService.addItem("wb-user-7", "book-a", 2);
+
+        BasketSummary summary = basketService.getBasketSummary("wb-user-7");
+        assertEquals(3, summary.getItemCount());
+        assertEquals(new BigDecimal("30.00"), summary.getTotalCosts());
+        assertEquals(summary.getVersion(), basketService.getBasketVersion("wb-user-7"));
+        Page<ItemSummary> page = basketService.getItems("wb-user-7", PageRequest.of(0, 1));
+        assertEquals("book-a", page.getContent().get(0).getId());
+        assertEquals(2, page.getTotalPages());
+
+        basketService.removeItem("wb-user-7", "book-b", 1);
+        assertNotEquals(summary.getVersion(), basketService.getBasketVersion("wb-user-7"));
+    }
+
+    @Test
+    void flush_ShouldKeepVersionInSync_WhenFlushedRepeatedly() throws Exception {
+        basketService.createBasket("wb-user-8");
+        basketStore.flush();
+        basketService.addItem("wb-user-8", "book-1", 1);
+        basketStore.flush();
+        basketService.addItem("wb-user-8", "book-1", 1);
+        basketStore.flush();
+
+        assertEquals(0, basketStore.getDirtyCount());
+        assertEquals(2, basketRepository.findSummaryById("wb-user-8").orElseThrow().getItemCount());
+    }
+
+    @Test
+    void flush_ShouldWriteAllBaskets_WhenMoreThanOneBatchIsDirty() {
+        basketService.createBasket("wb-user-2");
+        basketService.createBasket("wb-user-3");
+        basketService.createBasket("wb-user-4");
+
+        basketStore.flush();
+
+        assertTrue(basketRepository.existsById("wb-user-2"));
+        assertTrue(basketRepository.existsById("wb-user-3"));
+        assertTrue(basketRepository.existsById("wb-user-4"));
+    }
+
+    @Test
+    void removeBasket_ShouldDeletePersistedBasket_WhenFlushed() {
+        basketService.createBasket("wb-user-5");
+        basketStore.flush();
+
+        assertTrue(basketService.removeBasket("wb-user-5"));
+        assertTrue(basketRepository.existsById("wb-user-5"));
+
+        basketStore.flush();
+
+        assertFalse(basketRepository.existsById("wb-user-5"));
+    }
+
+    @Test
+    void getBasket_ShouldLoadPersistedBasket_WhenNotInMemory() {
+        Basket basket = new Basket();
+        basket.setId("wb-user-6");
+        basket.setUserId("wb-user-6");
+        basketRepository.save(basket);
+
+        assertEquals("wb-user-6", basketService.getBasket("wb-user-6").getId());
+        assertEquals("wb-user-6", basketService.getBasketID("wb-user-6"));
+    }
+
+    @Test
+    void getTotalCosts_ShouldNotLoadBaskets_WhenNotInMemory() throws Exception {
+        basketService.createBasket("wb-user-9");
+        basketService.addItem("wb-user-9", "book-1", 2);
+        Basket stored = new Basket();
+        stored.setId("wb-user-10");
+        stored.setUserId("wb-user-10");
+        Item item = new Item();
+        item.setId("book-2");
+        item.setName("Stored Book");
+        item.setAmount(3);
+        item.setPrice(new BigDecimal("4.50"));
+        stored.addItem(item);
+        basketRepository.save(stored);
+
+        Map<String, BigDecimal> totals = basketService.getTotalCosts(List.of("wb-user-9", "wb-user-10", "wb-unknown"));
+
+        assertEquals(2, totals.size());
+        assertEquals(0, new BigDecimal("20.00").compareTo(totals.get("wb-user-9")));
+        assertEquals(0, new BigDecimal("13.50").compareTo(totals.get("wb-user-10")));
+        assertTrue(basketStore.readIfResident("wb-user-10", Basket::getId).isEmpty());
+    }
+
+    @Test
+    void addItem_ShouldRoundPriceToCents_WhenBookHasMoreDecimals() throws Exception {
+        Book book = new Book();
+        book.setId("book-3");
+        book.setTitle("Third Book");
+        book.setPrice("0,125 €");
+        when(getBookDetails.getBookDetails("book-3")).thenReturn(book);
+        basketService.createBasket("wb-user-11");
+
+        basketService.addItem("wb-user-11", "book-3", 2);
+
+        assertEquals(new BigDecimal("0.13"), basketService.getItem("wb-user-11", "book-3").getPrice());
+        assertEquals(new BigDecimal("0.26"), basketService.getTotalCosts("wb-user-11"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.ribaso.basketservice.benchmarks;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.service.impl.CompactBasketStore;
+import com.ribaso.basketservice.core.domain.service.impl.ObjectBasketStore;
+import com.ribaso.basketservice.core.domain.service.interfaces.ResidentBasketStore;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Memory footprint of the resident baskets of the write-behind mode, per layout
+ * ({@code basket.storage.write-behind.layout}). Fills one store with random baskets drawn
+ * from a book catalog and reports the retained heap and direct memory after a full GC.
+ * Item strings and prices are fresh objects per line, as they are when baskets are loaded
+ * from the database. Run one layout per JVM so the numbers do not mix.
+ *
+ * <pre>
+ * java -Xmx8g -XX:MaxDirectMemorySize=4g -cp benchmarks/target/benchmarks.jar \
+ *     com.ribaso.basketservice.benchmarks.BasketFootprint --layout compact --baskets 1000000 --lines 3
+ * </pre>
+ */
+public final class BasketFootprint {
+
+    private BasketFootprint() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parse(args);
+        String layout = options.getOrDefault("layout", "objects");
+        int baskets = Integer.parseInt(options.getOrDefault("baskets", "1000000"));
+        int lines = Integer.parseInt(options.getOrDefault("lines", "3"));
+        int catalog = Integer.parseInt(options.getOrDefault("catalog", "10000"));
+
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+
+        ResidentBasketStore store = switch (layout) {
+            case "objects" -> new ObjectBasketStore();
+            case "compact" -> new CompactBasketStore(false);
+            case "off-heap" -> new CompactBasketStore(true);
+            default -> throw new IllegalArgumentException("Unknown layout " + layout);
+        };
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < baskets; i++) {
+            store.put(basket("user-" + i, lines, catalog, random));
+        }
+
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+        System.out.printf("layout=%s baskets=%d lines=%d%n", layout, store.size(), lines);
+        System.out.printf("heap   %,d MB  %,d bytes/basket%n", heap >> 20, heap / baskets);
+        System.out.printf("direct %,d MB  %,d bytes/basket%n", direct >> 20, direct / baskets);
+        System.out.printf("total  %,d bytes/line%n", (heap + direct) / ((long) baskets * lines));
+    }
+
+    private static Basket basket(String id, int lines, int catalog, SplittableRandom random) {
+        Basket basket = new Basket();
+        basket.setId(id);
+        basket.setUserId(id);
+        basket.setVersion(0L);
+        for (int line = 0; line < lines; line++) {
+            int book = random.nextInt(catalog);
+            Item item = new Item();
+            item.setId(new String("book-" + book));
+            item.setName(new String("Title of book " + book));
+            item.setAmount(1 + random.nextInt(3));
+            item.setPrice(BigDecimal.valueOf(500 + book % 5000, 2));
+            item.setVersion(0L);
+            item.setBasket(basket);
+            basket.getItems().add(item);
+        }
+        basket.recalculateTotals();
+        return basket;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,99 @@
+package com.ribaso.basketservice.benchmarks;
+
+import com.ribaso.basketservice.core.domain.service.impl.BasketServiceImpl;
+import com.ribaso.basketservice.core.domain.service.impl.BasketSnapshotCache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BasketServiceImpl} hot paths against in-memory repositories, for baskets of
+ * 1 to 1,000 items. Each iteration starts from a freshly built basket.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class BasketServiceBenchmark {
+
+    private static final String BASKET_ID = "benchmark-basket";
+
+    // Gross genug, dass removeItem in einer Iteration nie auf 0 kommt und addItem nicht ueberlaeuft
+    private static final int INITIAL_AMOUNT = 1_000_000_000;
+
+    @Param({ "1", "10", "100", "1000" })
+    public int basketSize;
+
+    private BasketServiceImpl basketService;
+
+    private BasketSnapshotCache basketCache;
+
+    private String[] itemIds;
+
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        InMemoryRepositories repositories = new InMemoryRepositories();
+        repositories.createBasket(BASKET_ID, basketSize, INITIAL_AMOUNT);
+        basketCache = new BasketSnapshotCache(10_000, Duration.ofMinutes(5));
+        basketService = Fixtures.basketService(repositories, basketCache);
+
+        itemIds = new String[basketSize];
+        for (int i = 0; i < basketSize; i++) {
+            itemIds[i] = InMemoryRepositories.itemId(i);
+        }
+        next = 0;
+        basketService.getBasket(BASKET_ID);
+    }
+
+    @Benchmark
+    public boolean addItem() throws IOException {
+        return basketService.addItem(BASKET_ID, nextItemId(), 1);
+    }
+
+    @Benchmark
+    public boolean removeItem() {
+        return basketService.removeItem(BASKET_ID, nextItemId(), 1);
+    }
+
+    /**
+     * Total from the cached basket snapshot, the usual read path.
+     */
+    @Benchmark
+    public BigDecimal getTotalCosts() {
+        return basketService.getTotalCosts(BASKET_ID);
+    }
+
+    /**
+     * Total after a cache miss, computed by the repository aggregate.
+     */
+    @Benchmark
+    public BigDecimal getTotalCostsUncached() {
+        basketCache.invalidate(BASKET_ID);
+        return basketService.getTotalCosts(BASKET_ID);
+    }
+
+    private String nextItemId() {
+        String itemId = itemIds[next];
+        next = next + 1 == itemIds.length ? 0 : next + 1;
+        return itemId;
+    }
+}
@@ -0,0 +1,40 @@
+package com.ribaso.basketservice.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ribaso.basketservice.core.domain.service.impl.BasketEventOutbox;
+import com.ribaso.basketservice.core.domain.service.impl.BasketServiceImpl;
+import com.ribaso.basketservice.core.domain.service.impl.BasketSnapshotCache;
+
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+
+/**
+ * Wires services without a Spring context. The services use field injection, so the
+ * collaborators are set reflectively.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static BasketServiceImpl basketService(InMemoryRepositories repositories, BasketSnapshotCache basketCache) {
+        BasketServiceImpl basketService = new BasketServiceImpl();
+        inject(basketService, "basketRepository", repositories.basketRepository);
+        inject(basketService, "itemRepository", repositories.itemRepository);
+        inject(basketService, "getBookDetails", new StubBookDetails());
+        inject(basketService, "basketCache", basketCache);
+        // Ohne Outbox-Tabelle: die Ereignisse werden nicht geschrieben
+        inject(basketService, "eventOutbox", new BasketEventOutbox(null, new ObjectMapper(), false));
+        return basketService;
+    }
+
+    static void inject(Object target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("No field " + fieldName + " on " + target.getClass().getName());
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
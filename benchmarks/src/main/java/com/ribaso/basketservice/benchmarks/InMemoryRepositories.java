@@ -0,0 +1,214 @@
+package com.ribaso.basketservice.benchmarks;
+
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketTotal;
+import com.ribaso.basketservice.core.domain.model.Item;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.ItemRepository;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory stand-ins for the JPA repositories, so the benchmarks measure the service code
+ * and not the database. Only the methods the services call are implemented; everything else
+ * throws {@link UnsupportedOperationException}. Not thread-safe, benchmarks use one instance
+ * per thread.
+ */
+final class InMemoryRepositories {
+
+    private final Map<String, Basket> baskets = new HashMap<>();
+
+    private final Map<String, Map<String, Item>> itemsByBasket = new HashMap<>();
+
+    final BasketRepository basketRepository = proxy(BasketRepository.class, this::basketCall);
+
+    final ItemRepository itemRepository = proxy(ItemRepository.class, this::itemCall);
+
+    /**
+     * Stores a basket with the given number of items, each with the given amount and price 10.00.
+     */
+    Basket createBasket(String basketId, int itemCount, int amount) {
+        Basket basket = new Basket();
+        basket.setId(basketId);
+        basket.setUserId(basketId);
+        basket.setVersion(0L);
+        saveBasket(basket);
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item();
+            item.setId(itemId(i));
+            item.setName("Book " + i);
+            item.setAmount(amount);
+            item.setPrice(new BigDecimal("10.00"));
+            item.setBasket(basket);
+            saveItem(item);
+        }
+        basket.recalculateTotals();
+        return basket;
+    }
+
+    static String itemId(int index) {
+        return "book-" + index;
+    }
+
+    private Object basketCall(Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "existsById" -> baskets.containsKey((String) args[0]);
+            case "getReferenceById" -> baskets.get((String) args[0]);
+            case "findById", "findWithItemsById" -> Optional.ofNullable(baskets.get((String) args[0]));
+            case "findByUserId" -> baskets.values().stream()
+                    .filter(basket -> args[0].equals(basket.getUserId()))
+                    .findFirst();
+            case "save" -> saveBasket((Basket) args[0]);
+            case "lockById" -> Optional.ofNullable(baskets.get((String) args[0])).map(Basket::getId);
+            case "findTotalCostsById" -> Optional.ofNullable(baskets.get((String) args[0])).map(Basket::getTotalCosts);
+            case "findTotalCostsByIdIn" -> totals((Collection<?>) args[0]);
+            case "addItemToTotals" -> {
+                Item item = findItem((String) args[0], (String) args[1]);
+                BigDecimal price = item != null ? item.getPrice() : BigDecimal.ZERO;
+                yield addToTotals((String) args[0], price.multiply(BigDecimal.valueOf((int) args[2])), (int) args[2]);
+            }
+            case "addToTotals" -> addToTotals((String) args[0], (BigDecimal) args[1], (int) args[2]);
+            case "recomputeTotals" -> {
+                Basket basket = baskets.get((String) args[0]);
+                if (basket == null) {
+                    yield 0;
+                }
+                basket.recalculateTotals();
+                basket.setVersion(basket.getVersion() + 1);
+                yield 1;
+            }
+            case "deleteById" -> {
+                baskets.remove((String) args[0]);
+                itemsByBasket.remove((String) args[0]);
+                yield null;
+            }
+            default -> throw new UnsupportedOperationException(method.toString());
+        };
+    }
+
+    private Object itemCall(Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "incrementAmount" -> updateAmount((String) args[0], (String) args[1], (int) args[2], 0);
+            case "decrementAmount" -> updateAmount((String) args[0], (String) args[1], -(int) args[2], (int) args[2]);
+            case "setAmount" -> {
+                Item item = findItem((String) args[0], (String) args[1]);
+                if (item == null) {
+                    yield 0;
+                }
+                item.setAmount((int) args[2]);
+                yield 1;
+            }
+            case "deleteIfEmpty" -> {
+                Item item = findItem((String) args[0], (String) args[1]);
+                if (item == null || item.getAmount() > 0) {
+                    yield 0;
+                }
+                itemsByBasket.get((String) args[0]).remove(item.getId());
+                baskets.get((String) args[0]).removeItem(item);
+                yield 1;
+            }
+            case "existsByIdAndBasketId" -> findItem((String) args[1], (String) args[0]) != null;
+            case "findByBasketIdAndBookId" -> Optional.ofNullable(findItem((String) args[0], (String) args[1]));
+            case "findIdsByBasketId" -> new ArrayList<>(itemsByBasket.getOrDefault((String) args[0], Map.of()).keySet());
+            case "save", "saveAndFlush" -> saveItem((Item) args[0]);
+            case "saveAll" -> {
+                List<Item> saved = new ArrayList<>();
+                for (Object item : (Iterable<?>) args[0]) {
+                    saved.add(saveItem((Item) item));
+                }
+                yield saved;
+            }
+            case "flush" -> null;
+            default -> throw new UnsupportedOperationException(method.toString());
+        };
+    }
+
+    private Basket saveBasket(Basket basket) {
+        baskets.put(basket.getId(), basket);
+        itemsByBasket.computeIfAbsent(basket.getId(), id -> new LinkedHashMap<>());
+        return basket;
+    }
+
+    private Item saveItem(Item item) {
+        String basketId = item.getBasket().getId();
+        if (itemsByBasket.get(basketId).put(item.getId(), item) == null) {
+            baskets.get(basketId).addItem(item);
+        }
+        return item;
+    }
+
+    private int updateAmount(String basketId, String itemId, int delta, int required) {
+        Item item = findItem(basketId, itemId);
+        if (item == null || item.getAmount() < required) {
+            return 0;
+        }
+        item.setAmount(item.getAmount() + delta);
+        return 1;
+    }
+
+    private int addToTotals(String basketId, BigDecimal costs, int amount) {
+        Basket basket = baskets.get(basketId);
+        if (basket == null) {
+            return 0;
+        }
+        basket.setTotalCosts(basket.getTotalCosts().add(costs));
+        basket.setItemCount(basket.getItemCount() + amount);
+        basket.setVersion(basket.getVersion() + 1);
+        return 1;
+    }
+
+    private Item findItem(String basketId, String itemId) {
+        Map<String, Item> items = itemsByBasket.get(basketId);
+        return items != null ? items.get(itemId) : null;
+    }
+
+    private List<BasketTotal> totals(Collection<?> basketIds) {
+        List<BasketTotal> totals = new ArrayList<>();
+        for (Object basketId : basketIds) {
+            Basket basket = baskets.get((String) basketId);
+            if (basket == null) {
+                continue;
+            }
+            BigDecimal totalCosts = basket.getTotalCosts();
+            totals.add(new BasketTotal() {
+                @Override
+                public String getBasketId() {
+                    return (String) basketId;
+                }
+
+                @Override
+                public BigDecimal getTotalCosts() {
+                    return totalCosts;
+                }
+            });
+        }
+        return totals;
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        Object invoke(Method method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Call call) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> type.getSimpleName() + " (in memory)";
+                };
+            }
+            return call.invoke(method, args);
+        }));
+    }
+}
@@ -0,0 +1,198 @@
+package com.ribaso.basketservice.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ribaso.basketservice.core.domain.model.Basket;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperation;
+import com.ribaso.basketservice.core.domain.model.BasketItemOperationResult;
+import com.ribaso.basketservice.core.domain.service.impl.BasketEventOutbox;
+import com.ribaso.basketservice.core.domain.service.impl.BasketServiceImpl;
+import com.ribaso.basketservice.core.domain.service.impl.BasketSnapshotCache;
+import com.ribaso.basketservice.core.domain.service.interfaces.BasketRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.ItemRepository;
+import com.ribaso.basketservice.core.domain.service.interfaces.ItemRepositoryCustomImpl;
+import com.ribaso.basketservice.core.domain.service.interfaces.OutboxRepository;
+import com.ribaso.basketservice.port.config.JdbcBatchingConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk add of new items ({@link BasketServiceImpl#applyItemOperations}) against a real
+ * database, with JDBC batching off ({@code batchSize} 1) and on. Besides the latency it
+ * prints the JDBC statements and batches per operation at the end of each trial.
+ * <p>
+ * Runs on in-memory H2 by default, where a round trip is cheap; the difference grows with
+ * network latency. For PostgreSQL (with {@code reWriteBatchedInserts}, see
+ * {@link JdbcBatchingConfig}) pass the connection as system properties:
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar ItemBatchInsertBenchmark \
+ *     -jvmArgsAppend "-Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5432/basket -Dbenchmark.jdbc.user=basket -Dbenchmark.jdbc.password=secret"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class ItemBatchInsertBenchmark {
+
+    @Param({ "1", "50" })
+    public int batchSize;
+
+    @Param({ "10", "100" })
+    public int newItems;
+
+    private HikariDataSource dataSource;
+
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private BasketRepository basketRepository;
+
+    private BasketServiceImpl basketService;
+
+    private List<BasketItemOperation> operations;
+
+    private String basketId;
+
+    private long baskets;
+
+    private long statementsBefore;
+
+    private long batchesBefore;
+
+    private long operationCount;
+
+    private long statementCount;
+
+    private long batchCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        operations = new ArrayList<>(newItems);
+        for (int i = 0; i < newItems; i++) {
+            operations.add(new BasketItemOperation(BasketItemOperation.Type.ADD, "book-" + i, 1));
+        }
+
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:items;DB_CLOSE_DELAY=-1"));
+        dataSource.setUsername(System.getProperty("benchmark.jdbc.user", "sa"));
+        dataSource.setPassword(System.getProperty("benchmark.jdbc.password", ""));
+        JdbcBatchingConfig.postgresBatchedInsertsPostProcessor().postProcessBeforeInitialization(dataSource, "dataSource");
+        // Dasselbe Schema wie die Anwendung
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan("com.ribaso.basketservice.core.domain.model");
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "validate",
+                // wie Spring Boot: itemCount -> item_count
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.jdbc.batch_size", String.valueOf(batchSize),
+                "hibernate.order_inserts", "true",
+                "hibernate.order_updates", "true",
+                "hibernate.session.events.auto", StatementCounter.class.getName()));
+        entityManagerFactoryBean.afterPropertiesSet();
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        basketRepository = repositoryFactory.getRepository(BasketRepository.class);
+
+        basketService = new BasketServiceImpl();
+        Fixtures.inject(basketService, "basketRepository", basketRepository);
+        // Ohne Spring wird das Fragment nicht gefunden und muss mitgegeben werden
+        Fixtures.inject(basketService, "itemRepository", repositoryFactory.getRepository(ItemRepository.class,
+                RepositoryFragments.just(new ItemRepositoryCustomImpl(entityManager))));
+        Fixtures.inject(basketService, "getBookDetails", new StubBookDetails());
+        Fixtures.inject(basketService, "transactionTemplate", transactionTemplate);
+        Fixtures.inject(basketService, "basketCache", new BasketSnapshotCache(1, Duration.ofMinutes(1)));
+        Fixtures.inject(basketService, "eventOutbox", new BasketEventOutbox(
+                repositoryFactory.getRepository(OutboxRepository.class), new ObjectMapper(), true));
+    }
+
+    /**
+     * A new basket for every call, so every line inserts an item. Outside the measurement.
+     */
+    @Setup(Level.Invocation)
+    public void createBasket() {
+        basketId = "batch-" + baskets++;
+        transactionTemplate.executeWithoutResult(status -> {
+            Basket basket = new Basket();
+            basket.setId(basketId);
+            basket.setUserId(basketId);
+            basketRepository.save(basket);
+        });
+        statementsBefore = StatementCounter.statements.get();
+        batchesBefore = StatementCounter.batches.get();
+    }
+
+    @Benchmark
+    public List<BasketItemOperationResult> addNewItems() {
+        return basketService.applyItemOperations(basketId, operations);
+    }
+
+    @TearDown(Level.Invocation)
+    public void countStatements() {
+        operationCount++;
+        statementCount += StatementCounter.statements.get() - statementsBefore;
+        batchCount += StatementCounter.batches.get() - batchesBefore;
+    }
+
+    /**
+     * Keeps the tables small, the H2 default runs in memory.
+     */
+    @TearDown(Level.Iteration)
+    public void deleteBaskets() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("delete from Item").executeUpdate();
+            entityManager.createQuery("delete from Basket").executeUpdate();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nbatch size %d, %d new items: %.1f statements and %.1f batches per operation%n",
+                batchSize, newItems, (double) statementCount / operationCount, (double) batchCount / operationCount);
+        entityManagerFactoryBean.destroy();
+        dataSource.close();
+    }
+}
@@ -0,0 +1,199 @@
+package com.ribaso.basketservice.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP load test against a running basket service, to compare throughput and
+ * tail latency of platform and virtual threads ({@code spring.threads.virtual.enabled}).
+ * Each client thread repeatedly reads a basket and its total costs; with {@code --books}
+ * it also adds and removes one of the given books, which goes through the book service.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.ribaso.basketservice.benchmarks.LoadTest \
+ *     --url http://localhost:8080 --concurrency 400 --duration 60s --label virtual
+ * </pre>
+ */
+public final class LoadTest {
+
+    private final HttpClient client;
+
+    private final String url;
+
+    private final int baskets;
+
+    private final String[] books;
+
+    private LoadTest(String url, int concurrency, int baskets, String[] books) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, concurrency / 10)))
+                .build();
+        this.url = url;
+        this.baskets = baskets;
+        this.books = books;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        Duration warmup = duration(options.getOrDefault("warmup", "10s"));
+        Duration duration = duration(options.getOrDefault("duration", "30s"));
+        int baskets = Integer.parseInt(options.getOrDefault("baskets", "100"));
+        String[] books = options.containsKey("books") ? options.get("books").split(",") : new String[0];
+        String label = options.getOrDefault("label", "run");
+
+        LoadTest loadTest = new LoadTest(url, concurrency, baskets, books);
+        loadTest.createBaskets();
+        Result result = loadTest.run(concurrency, warmup, duration);
+        result.print(label, concurrency, duration);
+        System.exit(0);
+    }
+
+    private void createBaskets() throws IOException, InterruptedException {
+        for (int i = 0; i < baskets; i++) {
+            send(HttpRequest.newBuilder(URI.create(url + "/baskets?userId=" + basketId(i)))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build());
+        }
+    }
+
+    private Result run(int concurrency, Duration warmup, Duration duration) throws Exception {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(workers.submit(() -> work(measureFrom, end)));
+        }
+        Result total = new Result();
+        for (Future<Result> future : futures) {
+            total.merge(future.get());
+        }
+        workers.shutdownNow();
+        return total;
+    }
+
+    private Result work(long measureFrom, long end) {
+        Result result = new Result();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            long start = System.nanoTime();
+            if (start >= end) {
+                return result;
+            }
+            String basketId = basketId(random.nextInt(baskets));
+            boolean ok;
+            try {
+                ok = step(basketId, random);
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return result;
+            }
+            if (start >= measureFrom) {
+                result.record(System.nanoTime() - start, ok);
+            }
+        }
+    }
+
+    // Ein Schritt entspricht einer typischen Nutzeraktion
+    private boolean step(String basketId, ThreadLocalRandom random) throws IOException, InterruptedException {
+        String basketUrl = url + "/baskets/" + basketId;
+        if (books.length > 0 && random.nextInt(4) == 0) {
+            String book = books[random.nextInt(books.length)];
+            boolean added = send(HttpRequest.newBuilder(URI.create(basketUrl + "/items?itemID=" + book + "&amount=1"))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build());
+            return added && send(HttpRequest.newBuilder(URI.create(basketUrl + "/items/" + book + "?amount=1"))
+                    .DELETE()
+                    .build());
+        }
+        return send(HttpRequest.newBuilder(URI.create(basketUrl)).GET().build())
+                && send(HttpRequest.newBuilder(URI.create(basketUrl + "/total-costs")).GET().build());
+    }
+
+    private boolean send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        return response.statusCode() < 400;
+    }
+
+    private static String basketId(int index) {
+        return "loadtest-" + index;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static Duration duration(String value) {
+        return Duration.parse("PT" + value.toUpperCase());
+    }
+
+    private static final class Result {
+
+        private long[] latencies = new long[1024];
+
+        private int count;
+
+        private long errors;
+
+        void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void merge(Result other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        void print(String label, int concurrency, Duration duration) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            double seconds = duration.toMillis() / 1000.0;
+            System.out.printf("label,concurrency,steps,errors,steps_per_sec,p50_ms,p90_ms,p99_ms,max_ms%n");
+            System.out.printf("%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f%n", label, concurrency, count, errors,
+                    count / seconds, millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99),
+                    count == 0 ? 0.0 : sorted[count - 1] / 1e6);
+        }
+
+        private static double millis(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ribaso.basketservice.benchmarks;
+
+import com.ribaso.basketservice.core.domain.service.impl.BasketServiceImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the price strings the book service sends, compared with the former
+ * regex-based implementation. Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class PriceParsingBenchmark {
+
+    @Param({ "19.99", "19.99 EUR", "EUR 1234.50", "12,99 EUR", "EUR 1.234,56" })
+    public String price;
+
+    @Benchmark
+    public BigDecimal cleanAndConvertToBigDecimal() {
+        return BasketServiceImpl.cleanAndConvertToBigDecimal(price);
+    }
+
+    @Benchmark
+    public BigDecimal regexBaseline() {
+        return regexClean(price);
+    }
+
+    /**
+     * The implementation of {@code cleanAndConvertToBigDecimal} before the single-pass parser,
+     * kept as baseline. It misreads comma decimals ("12,99" becomes 1299).
+     */
+    static BigDecimal regexClean(String price) {
+        if (price == null) {
+            return BigDecimal.ZERO;
+        }
+        String cleanedPrice = price.replaceAll("[^\\d.-]", "");
+        try {
+            return new BigDecimal(cleanedPrice);
+        } catch (NumberFormatException e) {
+            System.err.println("Fehler beim Umwandeln des Preises: " + e.getMessage());
+            return BigDecimal.ZERO;
+        }
+    }
+}
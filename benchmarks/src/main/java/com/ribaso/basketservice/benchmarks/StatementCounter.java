@@ -0,0 +1,26 @@
+package com.ribaso.basketservice.benchmarks;
+
+import org.hibernate.BaseSessionEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts executed JDBC statements and batches, i.e. database round trips. Hibernate creates
+ * one instance per session when the class is named in {@code hibernate.session.events.auto}.
+ */
+public class StatementCounter extends BaseSessionEventListener {
+
+    static final AtomicLong statements = new AtomicLong();
+
+    static final AtomicLong batches = new AtomicLong();
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statements.incrementAndGet();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batches.incrementAndGet();
+    }
+}
@@ -0,0 +1,47 @@
+package com.ribaso.basketservice.benchmarks;
+
+import com.ribaso.basketservice.core.domain.model.Book;
+import com.ribaso.basketservice.port.basket.producer.BookDetailsCache;
+import com.ribaso.basketservice.port.basket.producer.GetBookDetails;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link GetBookDetails} that answers locally instead of asking the book service over AMQP.
+ */
+final class StubBookDetails extends GetBookDetails {
+
+    StubBookDetails() {
+        super(null, null, new BookDetailsCache(1, Duration.ofMinutes(1), Duration.ofMinutes(1)),
+                Duration.ofSeconds(5), Duration.ofSeconds(30), false, Duration.ZERO, 1, new SimpleMeterRegistry());
+    }
+
+    @Override
+    public Book getBookDetails(String bookId) {
+        Book book = new Book();
+        book.setId(bookId);
+        book.setTitle("Book " + bookId);
+        book.setPrice("10.00");
+        return book;
+    }
+
+    @Override
+    public Map<String, Book> getBookDetails(Collection<String> bookIds) {
+        Map<String, Book> books = new LinkedHashMap<>();
+        for (String bookId : bookIds) {
+            books.put(bookId, getBookDetails(bookId));
+        }
+        return books;
+    }
+
+    @Override
+    public CompletableFuture<Book> getBookDetailsAsync(String bookId, Duration timeout) {
+        return CompletableFuture.completedFuture(getBookDetails(bookId));
+    }
+}